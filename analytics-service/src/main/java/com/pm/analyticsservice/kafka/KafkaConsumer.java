@@ -19,8 +19,12 @@ public class KafkaConsumer {
       PatientEvent patientEvent = PatientEvent.parseFrom(event);
       // ... perform any business related to analytics here
 
-      log.info("Received Patient Event: [PatientId={},PatientName={},PatientEmail={}]",
+      // Events are keyed by patient id, so one patient's events arrive in order
+      // (version increases) within their partition
+      log.info("Received Patient Event: [Type={},PatientId={},Version={},PatientName={},PatientEmail={}]",
+            patientEvent.getEventType(),
             patientEvent.getPatientId(),
+            patientEvent.getVersion(),
             patientEvent.getName(),
             patientEvent.getEmail());
     } catch (InvalidProtocolBufferException e) {
@@ -2,8 +2,6 @@ package com.pm.authservice.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.util.UUID;
@@ -12,7 +10,7 @@ import java.util.UUID;
 @Table(name="users")
 public class User {
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @TimeOrderedUuid
   private UUID id;
 
   @Column(unique = true, nullable = false)
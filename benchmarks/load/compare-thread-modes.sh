@@ -0,0 +1,63 @@
+#!/bin/bash
+# Runs the k6 load test twice against locally started patient-service and
+# auth-service jars: once on platform threads, once on virtual threads.
+#
+# Requires k6, built jars (mvn package in both services) and reachable
+# Postgres, Kafka and billing-service, configured through the usual SPRING_*
+# environment variables (e.g. SPRING_DATASOURCE_URL). Results are written to
+# results/<mode>.json as k6 summary exports.
+set -euo pipefail
+
+cd "$(dirname "$0")"
+ROOT=../..
+VUS=${VUS:-800}
+DURATION=${DURATION:-2m}
+mkdir -p results
+pinned=0
+
+wait_for() {
+  until curl -s -o /dev/null "$1"; do sleep 1; done
+}
+
+for mode in platform virtual; do
+  enabled=false
+  [ "$mode" = virtual ] && enabled=true
+
+  # -Djdk.tracePinnedThreads reports any virtual thread that blocks while
+  # pinned to its carrier (e.g. inside a synchronized block)
+  SPRING_THREADS_VIRTUAL_ENABLED=$enabled java -Djdk.tracePinnedThreads=short \
+    -jar $ROOT/patient-service/target/patient-service-0.0.1-SNAPSHOT.jar \
+    > results/patient-service-$mode.log 2>&1 &
+  patient_pid=$!
+  SPRING_THREADS_VIRTUAL_ENABLED=$enabled java -Djdk.tracePinnedThreads=short \
+    -jar $ROOT/auth-service/target/auth-service-0.0.1-SNAPSHOT.jar \
+    > results/auth-service-$mode.log 2>&1 &
+  auth_pid=$!
+
+  wait_for http://localhost:4000/patients
+  wait_for http://localhost:4005/validate
+
+  k6 run -e VUS="$VUS" -e DURATION="$DURATION" \
+    --summary-export=results/$mode.json thread-modes.js
+
+  kill $patient_pid $auth_pid
+  wait $patient_pid $auth_pid 2>/dev/null || true
+
+  if grep -q "onPinned\|<== monitors" results/*-service-$mode.log; then
+    echo "ERROR: pinned virtual threads reported in $mode run:"
+    grep -h -B2 -A8 "onPinned\|<== monitors" results/*-service-$mode.log | head -40
+    [ "$mode" = virtual ] && pinned=1
+  fi
+done
+
+for mode in platform virtual; do
+  echo "== $mode threads"
+  jq -r '"requests/s: \(.metrics.http_reqs.rate)",
+         "list p99 ms: \(.metrics.patients_list_latency["p(99)"] // "n/a")",
+         "create p99 ms: \(.metrics.patients_create_latency["p(99)"] // "n/a")",
+         "login p99 ms: \(.metrics.auth_login_latency["p(99)"] // "n/a")",
+         "failed: \(.metrics.http_req_failed.value)"' results/$mode.json
+done
+
+# Virtual-thread mode only pays off if nothing pins; fail the run if it did
+exit $pinned
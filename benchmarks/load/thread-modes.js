@@ -0,0 +1,52 @@
+// k6 load test comparing platform-thread and virtual-thread execution.
+//
+//   k6 run -e PATIENT_URL=http://localhost:4000 -e AUTH_URL=http://localhost:4005 \
+//          -e VUS=800 -e DURATION=2m --summary-export=result.json thread-modes.js
+//
+// Each iteration reads a page of patients, creates a patient and logs in, so
+// the run mixes JDBC reads, JDBC writes + billing gRPC, and BCrypt.
+
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const PATIENT_URL = __ENV.PATIENT_URL || 'http://localhost:4000';
+const AUTH_URL = __ENV.AUTH_URL || 'http://localhost:4005';
+
+const listLatency = new Trend('patients_list_latency', true);
+const createLatency = new Trend('patients_create_latency', true);
+const loginLatency = new Trend('auth_login_latency', true);
+
+export const options = {
+  scenarios: {
+    high_concurrency: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || 800),
+      duration: __ENV.DURATION || '2m',
+    },
+  },
+};
+
+export default function () {
+  const list = http.get(`${PATIENT_URL}/patients?limit=50`);
+  listLatency.add(list.timings.duration);
+  check(list, { 'list 200': (r) => r.status === 200 });
+
+  const unique = `${__VU}-${__ITER}-${Date.now()}`;
+  const create = http.post(`${PATIENT_URL}/patients`, JSON.stringify({
+    name: `Load Test ${unique}`,
+    email: `load_${unique}@example.com`,
+    address: '1 Load Test Street',
+    dateOfBirth: '1990-01-01',
+    registeredDate: '2024-01-01',
+  }), { headers: { 'Content-Type': 'application/json' } });
+  createLatency.add(create.timings.duration);
+  check(create, { 'create 200': (r) => r.status === 200 });
+
+  const login = http.post(`${AUTH_URL}/login`, JSON.stringify({
+    email: 'testuser@test.com',
+    password: 'password123',
+  }), { headers: { 'Content-Type': 'application/json' } });
+  loginLatency.add(login.timings.duration);
+  check(login, { 'login 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,96 @@
+#!/bin/bash
+# Starts each service repeatedly in every startup mode that has been built
+# and records the time until it answers its first request, and how long that
+# first request takes:
+#   jar     - java -jar target/<service>.jar (mvn package)
+#   aot-cds - AOT-processed context plus CDS archive (mvn -Pfast-startup package)
+#   native  - GraalVM executable (mvn -Pnative native:compile), if present
+#
+# patient-service and auth-service need reachable Postgres (and Kafka for
+# patient-service) through the usual SPRING_* environment variables, e.g.
+# SPRING_DATASOURCE_URL. billing-service is probed over gRPC with grpcurl.
+# Results are appended to results/startup.csv.
+set -euo pipefail
+
+cd "$(dirname "$0")"
+ROOT=$(cd ../.. && pwd)
+RUNS=${RUNS:-5}
+SERVICES=${SERVICES:-"patient-service auth-service billing-service"}
+mkdir -p results
+echo "service,mode,run,ready_ms,first_request_ms" > results/startup.csv
+
+now_ms() {
+  date +%s%3N
+}
+
+# First request per service; prints its duration in ms and succeeds once the
+# service answered at all (any HTTP status, or a gRPC reply)
+first_request() {
+  case $1 in
+    patient-service)
+      curl -s -o /dev/null -w '%{time_total}' "http://localhost:4000/patients?limit=1" \
+        | awk '{ printf "%d", $1 * 1000 }' ;;
+    auth-service)
+      curl -s -o /dev/null -w '%{time_total}' -X POST -H 'Content-Type: application/json' \
+        -d '{"email":"bench@example.com","password":"password123"}' \
+        http://localhost:4005/login | awk '{ printf "%d", $1 * 1000 }' ;;
+    billing-service)
+      local start=$(now_ms)
+      grpcurl -plaintext -import-path "$ROOT/billing-service/src/main/proto" \
+        -proto billing_service.proto \
+        -d '{"patientId":"bench","name":"Bench","email":"bench@example.com"}' \
+        localhost:9001 BillingService/CreateBillingAccount > /dev/null || return 1
+      echo $(( $(now_ms) - start )) ;;
+  esac
+}
+
+command_for() {
+  local service=$1 mode=$2 target="$ROOT/$1/target"
+  case $mode in
+    jar)
+      [ -f "$target/$service-0.0.1-SNAPSHOT.jar" ] && \
+        echo "java -jar $target/$service-0.0.1-SNAPSHOT.jar" ;;
+    aot-cds)
+      [ -f "$target/application/application.jsa" ] && \
+        echo "java -XX:SharedArchiveFile=$target/application/application.jsa -Dspring.aot.enabled=true -jar $target/application/$service-0.0.1-SNAPSHOT.jar" ;;
+    native)
+      [ -x "$target/$service" ] && echo "$target/$service" ;;
+  esac
+  return 0
+}
+
+for service in $SERVICES; do
+  for mode in jar aot-cds native; do
+    cmd=$(command_for "$service" "$mode")
+    if [ -z "$cmd" ]; then
+      echo "skipping $service ($mode): not built"
+      continue
+    fi
+
+    for run in $(seq 1 "$RUNS"); do
+      start=$(now_ms)
+      $cmd > "results/$service-$mode.log" 2>&1 &
+      pid=$!
+
+      # Ready = the first request gets an answer; the time it took is the
+      # first-request latency (class loading, lazy init, JIT warm-up)
+      until latency=$(first_request "$service" 2>/dev/null) && [ -n "$latency" ] \
+          && [ "$latency" != 0 ]; do
+        kill -0 $pid 2>/dev/null || { echo "$service ($mode) exited, see results/$service-$mode.log"; exit 1; }
+        sleep 0.1
+      done
+      ready=$(( $(now_ms) - start ))
+
+      echo "$service,$mode,$run,$ready,$latency" >> results/startup.csv
+      kill $pid
+      wait $pid 2>/dev/null || true
+    done
+  done
+done
+
+# Mean over the runs for each service and mode
+echo "service mode ready_ms first_request_ms"
+tail -n +2 results/startup.csv | awk -F, '
+  { key = $1 " " $2; n[key]++; ready[key] += $4; first[key] += $5 }
+  END { for (key in n) printf "%s %d %d\n", key, ready[key] / n[key], first[key] / n[key] }' \
+  | sort
@@ -0,0 +1,62 @@
+-- Random (v4) vs time-ordered (v7) UUID primary keys on PostgreSQL.
+--
+--   psql -h localhost -U admin_user -d db -v rows=2000000 -f insert-and-index-size.sql
+--
+-- Inserts the same number of patient-shaped rows into two scratch tables in
+-- batches of 1000 and reports elapsed time, primary key index size and
+-- leaf density. uuid_v7() mirrors UuidV7Generator (48-bit millis, 12-bit
+-- counter, 62 random bits) closely enough for index locality purposes.
+
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+  \set rows 1000000
+\endif
+
+CREATE EXTENSION IF NOT EXISTS pgstattuple;
+
+CREATE OR REPLACE FUNCTION pg_temp.uuid_v7() RETURNS uuid AS $$
+DECLARE
+  stamp bigint := (extract(epoch FROM clock_timestamp()) * 1000)::bigint;
+  bytes bytea := uuid_send(gen_random_uuid());
+BEGIN
+  bytes := overlay(bytes PLACING substring(int8send(stamp) FROM 3) FROM 1 FOR 6);
+  bytes := set_byte(bytes, 6, (get_byte(bytes, 6) & 15) | 112);
+  bytes := set_byte(bytes, 8, (get_byte(bytes, 8) & 63) | 128);
+  RETURN encode(bytes, 'hex')::uuid;
+END
+$$ LANGUAGE plpgsql VOLATILE;
+
+DROP TABLE IF EXISTS bench_uuid_v4, bench_uuid_v7;
+CREATE TABLE bench_uuid_v4 (id uuid PRIMARY KEY, name text, email text, created_at timestamptz);
+CREATE TABLE bench_uuid_v7 (LIKE bench_uuid_v4 INCLUDING ALL);
+
+CREATE OR REPLACE PROCEDURE pg_temp.fill(target text, generator text, total int) AS $$
+DECLARE
+  started timestamptz := clock_timestamp();
+BEGIN
+  FOR batch IN 0 .. (total - 1) / 1000 LOOP
+    EXECUTE format(
+      'INSERT INTO %I SELECT %s, ''Patient '' || n, ''p'' || n || ''@example.com'', now()
+         FROM generate_series($1, $2) n', target, generator)
+      USING batch * 1000 + 1, least((batch + 1) * 1000, total);
+    COMMIT;
+  END LOOP;
+  RAISE NOTICE '%: % rows in % (% rows/s)', target, total, clock_timestamp() - started,
+    round(total / extract(epoch FROM clock_timestamp() - started));
+END
+$$ LANGUAGE plpgsql;
+
+CALL pg_temp.fill('bench_uuid_v4', 'gen_random_uuid()', :rows);
+CALL pg_temp.fill('bench_uuid_v7', 'pg_temp.uuid_v7()', :rows);
+
+SELECT c.relname                              AS index,
+       pg_size_pretty(pg_relation_size(c.oid)) AS size,
+       s.avg_leaf_density,
+       s.leaf_fragmentation
+FROM pg_class c
+CROSS JOIN LATERAL pgstatindex(c.oid) s
+WHERE c.relname IN ('bench_uuid_v4_pkey', 'bench_uuid_v7_pkey')
+ORDER BY c.relname;
+
+DROP TABLE bench_uuid_v4, bench_uuid_v7;
@@ -1,5 +1,7 @@
 package com.pm.billingservice.grpc;
 
+import billing.BillingBatchRequest;
+import billing.BillingBatchResponse;
 import billing.BillingRequest;
 import billing.BillingResponse;
 import billing.BillingServiceGrpc.BillingServiceImplBase;
@@ -22,12 +24,34 @@ public class BillingGrpcService extends BillingServiceImplBase {
 
       // Business logic - e.g save to database, perform calculates etc
 
-      BillingResponse response = BillingResponse.newBuilder()
-          .setAccountId("12345")
-          .setStatus("ACTIVE")
-          .build();
+      BillingResponse response = createAccount(billingRequest);
 
       responseObserver.onNext(response);
       responseObserver.onCompleted();
   }
+
+  @Override
+  public void createBillingAccounts(BillingBatchRequest billingBatchRequest,
+      StreamObserver<BillingBatchResponse> responseObserver) {
+
+      log.info("createBillingAccounts request received for {} patients",
+          billingBatchRequest.getRequestsCount());
+
+      BillingBatchResponse.Builder response = BillingBatchResponse.newBuilder();
+      billingBatchRequest.getRequestsList()
+          .forEach(request -> response.addResponses(createAccount(request)));
+
+      responseObserver.onNext(response.build());
+      responseObserver.onCompleted();
+  }
+
+  private BillingResponse createAccount(BillingRequest billingRequest) {
+      // Business logic - e.g save to database, perform calculates etc
+
+      return BillingResponse.newBuilder()
+          .setAccountId("12345")
+          .setStatus("ACTIVE")
+          .setPatientId(billingRequest.getPatientId())
+          .build();
+  }
 }
@@ -0,0 +1,41 @@
+package com.pm.patientservice;
+
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class BenchmarkFixtures {
+
+  private BenchmarkFixtures() {
+  }
+
+  public static PatientRequestDTO request(int n) {
+    PatientRequestDTO request = new PatientRequestDTO();
+    request.setName("Patient " + n);
+    request.setEmail("patient" + n + "@example.com");
+    request.setAddress(n + " Main St, Springfield");
+    request.setDateOfBirth("1985-06-15");
+    request.setRegisteredDate("2024-01-10");
+    return request;
+  }
+
+  public static Patient patient(int n) {
+    Patient patient = new Patient();
+    patient.setId(UUID.randomUUID());
+    patient.setName("Patient " + n);
+    patient.setEmail("patient" + n + "@example.com");
+    patient.setAddress(n + " Main St, Springfield");
+    patient.setDateOfBirth(LocalDate.of(1985, 6, 15));
+    patient.setRegisteredDate(LocalDate.of(2024, 1, 10));
+    return patient;
+  }
+
+  public static PatientView view(int n) {
+    return new PatientView(UUID.randomUUID(), "Patient " + n,
+        "patient" + n + "@example.com", n + " Main St, Springfield",
+        LocalDate.of(1985, 6, 15), BillingStatus.PROVISIONED, 0L);
+  }
+}
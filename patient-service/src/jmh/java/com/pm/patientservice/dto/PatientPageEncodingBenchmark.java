@@ -0,0 +1,88 @@
+package com.pm.patientservice.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.BenchmarkFixtures;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.mapper.PatientProtoMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import patient.api.PatientPage;
+
+// JSON against application/x-protobuf for a page of patients, both ways: the
+// service encodes, an internal caller decodes. The protobuf side includes the
+// DTO-to-message mapping the message converter does. The encode benchmarks
+// also report the payload size, as the secondary result "bytes".
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PatientPageEncodingBenchmark {
+
+  @Param({"1000"})
+  private int size;
+
+  private ObjectMapper objectMapper;
+  private PatientPageResponseDTO page;
+  private byte[] json;
+  private byte[] protobuf;
+
+  @Setup
+  public void setUp() throws IOException {
+    // Configured the way Spring MVC builds its ObjectMapper
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    List<PatientResponseDTO> patients = IntStream.range(0, size)
+        .mapToObj(n -> PatientMapper.toDTO(BenchmarkFixtures.view(n)))
+        .toList();
+    page = new PatientPageResponseDTO(patients, "cursor");
+
+    json = objectMapper.writeValueAsBytes(page);
+    protobuf = PatientProtoMapper.toProto(page).toByteArray();
+  }
+
+  // EVENTS counters are reported as they stand, not divided by time, so this
+  // is the size of the last payload encoded
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PayloadSize {
+    public long bytes;
+  }
+
+  @Benchmark
+  public byte[] encodeJson(PayloadSize payloadSize) throws IOException {
+    byte[] encoded = objectMapper.writeValueAsBytes(page);
+    payloadSize.bytes = encoded.length;
+    return encoded;
+  }
+
+  @Benchmark
+  public byte[] encodeProtobuf(PayloadSize payloadSize) {
+    byte[] encoded = PatientProtoMapper.toProto(page).toByteArray();
+    payloadSize.bytes = encoded.length;
+    return encoded;
+  }
+
+  @Benchmark
+  public PatientPageResponseDTO decodeJson() throws IOException {
+    return objectMapper.readValue(json, PatientPageResponseDTO.class);
+  }
+
+  @Benchmark
+  public PatientPage decodeProtobuf() throws IOException {
+    return PatientPage.parseFrom(protobuf);
+  }
+}
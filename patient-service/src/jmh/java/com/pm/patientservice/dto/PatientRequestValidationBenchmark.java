@@ -0,0 +1,64 @@
+package com.pm.patientservice.dto;
+
+import com.pm.patientservice.BenchmarkFixtures;
+import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.groups.Default;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PatientRequestValidationBenchmark {
+
+  private ValidatorFactory validatorFactory;
+  private Validator validator;
+  private PatientRequestDTO valid;
+  private PatientRequestDTO invalid;
+
+  @Setup
+  public void setUp() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    validator = validatorFactory.getValidator();
+    valid = BenchmarkFixtures.request(1);
+
+    // Violations are the expensive case: messages are interpolated
+    invalid = BenchmarkFixtures.request(2);
+    invalid.setEmail("not-an-email");
+    invalid.setRegisteredDate("");
+  }
+
+  @TearDown
+  public void tearDown() {
+    validatorFactory.close();
+  }
+
+  // Same groups as POST /patients and POST /patients/batch
+  @Benchmark
+  public Set<ConstraintViolation<PatientRequestDTO>> validRequest() {
+    return validator.validate(valid, Default.class,
+        CreatePatientValidationGroup.class);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<PatientRequestDTO>> invalidRequest() {
+    return validator.validate(invalid, Default.class,
+        CreatePatientValidationGroup.class);
+  }
+}
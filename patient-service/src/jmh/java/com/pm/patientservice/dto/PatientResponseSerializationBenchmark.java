@@ -0,0 +1,50 @@
+package com.pm.patientservice.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pm.patientservice.BenchmarkFixtures;
+import com.pm.patientservice.mapper.PatientMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PatientResponseSerializationBenchmark {
+
+  // Default and maximum page size of GET /patients
+  @Param({"50", "500"})
+  private int size;
+
+  private ObjectWriter objectWriter;
+  private PatientPageResponseDTO page;
+
+  @Setup
+  public void setUp() {
+    // Configured the way Spring MVC builds its ObjectMapper
+    objectWriter = Jackson2ObjectMapperBuilder.json().build().writer();
+    List<PatientResponseDTO> patients = IntStream.range(0, size)
+        .mapToObj(n -> PatientMapper.toDTO(BenchmarkFixtures.view(n)))
+        .toList();
+    page = new PatientPageResponseDTO(patients, "cursor");
+  }
+
+  @Benchmark
+  public byte[] serializePage() throws JsonProcessingException {
+    return objectWriter.writeValueAsBytes(page);
+  }
+}
@@ -0,0 +1,37 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.BenchmarkFixtures;
+import com.pm.patientservice.model.Patient;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PatientEventBenchmark {
+
+  private Patient patient;
+
+  @Setup
+  public void setUp() {
+    patient = BenchmarkFixtures.patient(1);
+  }
+
+  // Builds the PatientEvent protobuf and serializes it, as done for every
+  // outbox row
+  @Benchmark
+  public byte[] buildPayload() {
+    return PatientEventOutbox.toPayload(patient, "PATIENT_CREATED", Instant.now());
+  }
+}
@@ -0,0 +1,58 @@
+package com.pm.patientservice.mapper;
+
+import com.pm.patientservice.BenchmarkFixtures;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PatientMapperBenchmark {
+
+  private PatientRequestDTO request;
+  private Patient patient;
+  private PatientView view;
+
+  @Setup
+  public void setUp() {
+    request = BenchmarkFixtures.request(1);
+    patient = BenchmarkFixtures.patient(1);
+    view = BenchmarkFixtures.view(1);
+  }
+
+  @Benchmark
+  public Patient toModel() {
+    return PatientMapper.toModel(request);
+  }
+
+  // The part of toModel spent parsing the two ISO dates
+  @Benchmark
+  public LocalDate parseDate() {
+    return LocalDate.parse(request.getDateOfBirth());
+  }
+
+  @Benchmark
+  public PatientResponseDTO toDtoFromEntity() {
+    return PatientMapper.toDTO(patient);
+  }
+
+  @Benchmark
+  public PatientResponseDTO toDtoFromView() {
+    return PatientMapper.toDTO(view);
+  }
+}
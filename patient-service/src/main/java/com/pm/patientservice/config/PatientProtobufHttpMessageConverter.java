@@ -0,0 +1,73 @@
+package com.pm.patientservice.config;
+
+import com.google.protobuf.Message;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientPatchRequestDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.mapper.PatientProtoMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import patient.api.PatientPatchRequest;
+import patient.api.PatientRequest;
+
+// Reads and writes the patient DTOs as application/x-protobuf, so the
+// controller and validation stay the same for both formats. Only chosen when
+// the request's Content-Type or Accept asks for protobuf; JSON is registered
+// first and stays the default.
+public class PatientProtobufHttpMessageConverter
+    extends AbstractHttpMessageConverter<Object> {
+
+  // Binary, so without the charset Spring's ProtobufHttpMessageConverter adds
+  public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+  private static final Set<Class<?>> READABLE = Set.of(
+      PatientRequestDTO.class, PatientPatchRequestDTO.class);
+  private static final Set<Class<?>> WRITABLE = Set.of(
+      PatientResponseDTO.class, PatientPageResponseDTO.class);
+
+  public PatientProtobufHttpMessageConverter() {
+    super(PROTOBUF);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return READABLE.contains(clazz) || WRITABLE.contains(clazz);
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return READABLE.contains(clazz) && canRead(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    return WRITABLE.contains(clazz) && canWrite(mediaType);
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+      throws IOException, HttpMessageNotReadableException {
+    InputStream body = inputMessage.getBody();
+    if (clazz == PatientPatchRequestDTO.class) {
+      return PatientProtoMapper.toDTO(PatientPatchRequest.parseFrom(body));
+    }
+    return PatientProtoMapper.toDTO(PatientRequest.parseFrom(body));
+  }
+
+  @Override
+  protected void writeInternal(Object dto, HttpOutputMessage outputMessage)
+      throws IOException, HttpMessageNotWritableException {
+    Message message = dto instanceof PatientPageResponseDTO page
+        ? PatientProtoMapper.toProto(page)
+        : PatientProtoMapper.toProto((PatientResponseDTO) dto);
+    message.writeTo(outputMessage.getBody());
+  }
+}
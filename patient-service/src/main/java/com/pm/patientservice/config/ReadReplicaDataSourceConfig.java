@@ -0,0 +1,83 @@
+package com.pm.patientservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+// Only active when replicas are configured; otherwise Spring Boot's single
+// datasource is used as before.
+//
+// Read-only transactions (@Transactional(readOnly = true): list, get, export)
+// run on a replica, everything else on the primary. Replicas share the
+// primary's credentials unless their own are set. replica-max-lag must be
+// set too: without it a patient's reads would not be pinned to the primary
+// after a write, and could return what the patient was before it.
+@Configuration
+@ConditionalOnProperty("patient.datasource.replica-urls")
+public class ReadReplicaDataSourceConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(
+      HikariDataSource primaryDataSource, DataSourceProperties properties,
+      MeterRegistry meterRegistry,
+      @Value("${patient.datasource.replica-urls}") List<String> replicaUrls,
+      @Value("${patient.datasource.replica-username:}") String username,
+      @Value("${patient.datasource.replica-password:}") String password,
+      @Value("${patient.datasource.replica-pool-size:10}") int poolSize,
+      @Value("${patient.datasource.replica-max-lag:PT0S}") Duration maxLag) {
+    if (maxLag.isZero() || maxLag.isNegative()) {
+      throw new IllegalStateException("patient.datasource.replica-max-lag must "
+          + "be set to the longest lag expected on the replicas, e.g. PT2S");
+    }
+
+    List<DataSource> replicas = new ArrayList<>();
+    for (int i = 0; i < replicaUrls.size(); i++) {
+      HikariDataSource replica = new HikariDataSource();
+      replica.setPoolName("replica-" + i);
+      replica.setJdbcUrl(replicaUrls.get(i).trim());
+      replica.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+      replica.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+      replica.setMaximumPoolSize(poolSize);
+      replica.setReadOnly(true);
+      // Same hikaricp.connections.* metrics as the primary, tagged pool=replica-N
+      replica.setMetricsTrackerFactory(
+          new MicrometerMetricsTrackerFactory(meterRegistry));
+      replicas.add(replica);
+    }
+    return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+  }
+
+  // Hibernate gets a connection handle at the start of every transaction, but
+  // the proxy only fetches a real connection at the first statement: from the
+  // replicas if the transaction set it read-only, otherwise from the primary
+  @Bean
+  @Primary
+  public DataSource dataSource(HikariDataSource primaryDataSource,
+      ReplicaRoutingDataSource replicaRoutingDataSource) {
+    LazyConnectionDataSourceProxy dataSource =
+        new LazyConnectionDataSourceProxy(primaryDataSource);
+    dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+    return dataSource;
+  }
+}
@@ -0,0 +1,74 @@
+package com.pm.patientservice.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// Picks the database for read-only connections: replicas in turn, or the
+// primary while the current thread is inside usePrimary(). Sits behind a
+// LazyConnectionDataSourceProxy, which only asks for a connection once the
+// transaction has marked it read-only and the first statement runs.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource
+    implements DisposableBean {
+
+  private static final String PRIMARY = "primary";
+  private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+  private final List<DataSource> replicas;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    for (int i = 0; i < replicas.size(); i++) {
+      targets.put(replicaKey(i), replicas.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+    this.replicas = List.copyOf(replicas);
+  }
+
+  // Runs a read against the primary, e.g. right after the data was written and
+  // before the replicas can be relied on to have it
+  public static <T> T usePrimary(Supplier<T> read) {
+    Boolean previous = FORCE_PRIMARY.get();
+    FORCE_PRIMARY.set(Boolean.TRUE);
+    try {
+      return read.get();
+    } finally {
+      if (previous == null) {
+        FORCE_PRIMARY.remove();
+      } else {
+        FORCE_PRIMARY.set(previous);
+      }
+    }
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (replicas.isEmpty() || Boolean.TRUE.equals(FORCE_PRIMARY.get())) {
+      return PRIMARY;
+    }
+    return replicaKey(Math.floorMod(next.getAndIncrement(), replicas.size()));
+  }
+
+  // The primary is a bean of its own; the replica pools belong to this one
+  @Override
+  public void destroy() throws Exception {
+    for (DataSource replica : replicas) {
+      if (replica instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+
+  private static String replicaKey(int index) {
+    return "replica-" + index;
+  }
+}
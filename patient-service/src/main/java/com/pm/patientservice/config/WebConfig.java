@@ -0,0 +1,16 @@
+package com.pm.patientservice.config;
+
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  // Appended after Jackson: requests that do not ask for protobuf get JSON
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new PatientProtobufHttpMessageConverter());
+  }
+}
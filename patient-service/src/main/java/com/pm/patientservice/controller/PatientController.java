@@ -1,53 +1,209 @@
 package com.pm.patientservice.controller;
 
+import com.pm.patientservice.dto.DuplicateCandidateDTO;
+import com.pm.patientservice.dto.PatientBatchResponseDTO;
+import com.pm.patientservice.dto.PatientImportResponseDTO;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientPatchRequestDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientStatisticsResponseDTO;
 import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.service.IdempotencyKeyStore;
+import com.pm.patientservice.service.PatientBatchService;
+import com.pm.patientservice.service.PatientDuplicateDetector;
+import com.pm.patientservice.service.PatientExportService;
+import com.pm.patientservice.service.PatientImportService;
 import com.pm.patientservice.service.PatientService;
+import com.pm.patientservice.service.PatientStatistics;
+import com.pm.patientservice.service.PatientVersionStamp;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.groups.Default;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/patients")
 @Tag(name = "Patient", description = "API for managing Patients")
 public class PatientController {
 
+  static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
   private final PatientService patientService;
+  private final PatientExportService patientExportService;
+  private final PatientBatchService patientBatchService;
+  private final PatientImportService patientImportService;
+  private final PatientVersionStamp patientVersionStamp;
+  private final IdempotencyKeyStore idempotencyKeyStore;
+  private final PatientStatistics patientStatistics;
+  private final PatientDuplicateDetector patientDuplicateDetector;
 
-  public PatientController(PatientService patientService) {
+  public PatientController(PatientService patientService,
+      PatientExportService patientExportService,
+      PatientBatchService patientBatchService,
+      PatientImportService patientImportService,
+      PatientVersionStamp patientVersionStamp,
+      IdempotencyKeyStore idempotencyKeyStore,
+      PatientStatistics patientStatistics,
+      PatientDuplicateDetector patientDuplicateDetector) {
     this.patientService = patientService;
+    this.patientExportService = patientExportService;
+    this.patientBatchService = patientBatchService;
+    this.patientImportService = patientImportService;
+    this.patientVersionStamp = patientVersionStamp;
+    this.idempotencyKeyStore = idempotencyKeyStore;
+    this.patientStatistics = patientStatistics;
+    this.patientDuplicateDetector = patientDuplicateDetector;
   }
 
+  // Reads are tagged with the version stamp taken before querying, so a write
+  // committed while the query runs changes the tag of the next poll. A match
+  // on If-None-Match answers 304 without touching the database. Tags are per
+  // instance, so a tag from another replica gets the full page. JSON and
+  // protobuf pages share the tag, so responses vary by Accept (also the 304,
+  // which is sent before the entity's headers would be).
   @GetMapping
-  @Operation(summary = "Get Patients")
-  public ResponseEntity<List<PatientResponseDTO>> getPatients() {
-    List<PatientResponseDTO> patients = patientService.getPatients();
-    return ResponseEntity.ok().body(patients);
+  @Operation(summary = "Get a page of Patients")
+  public ResponseEntity<PatientPageResponseDTO> getPatients(
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "${patient.pagination.default-limit:50}") int limit,
+      WebRequest webRequest, HttpServletResponse response) {
+    String etag = patientVersionStamp.etag();
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+
+    PatientPageResponseDTO patients = patientService.getPatients(after, limit);
+    return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+        .body(patients);
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Export all Patients as newline-delimited JSON")
+  public ResponseEntity<StreamingResponseBody> exportPatients() {
+    StreamingResponseBody body = patientExportService::exportPatients;
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+        .body(body);
+  }
+
+  // Served from in-memory counters; no query runs per request
+  @GetMapping("/statistics")
+  @Operation(summary = "Get patient totals, registrations per month and ages")
+  public ResponseEntity<PatientStatisticsResponseDTO> getStatistics() {
+    return ResponseEntity.ok().body(patientStatistics.get());
+  }
+
+  // JSON only: the protobuf converter covers single patients and pages, not
+  // bare lists, so asking for application/x-protobuf gets 406. (A produces
+  // condition here would hand such requests to GET /{id} instead.)
+  @GetMapping("/search")
+  @Operation(summary = "Search Patients by partial name, email or address",
+      description = "JSON only; application/x-protobuf is not offered")
+  public ResponseEntity<List<PatientResponseDTO>> searchPatients(
+      @RequestParam String q,
+      @RequestParam(defaultValue = "${patient.search.default-limit:20}") int limit) {
+    return ResponseEntity.ok().body(patientService.searchPatients(q, limit));
+  }
+
+  // Served from the in-memory duplicate index; no query runs per request
+  @GetMapping("/duplicates")
+  @Operation(summary = "Get the likeliest duplicate Patient pairs")
+  public ResponseEntity<List<DuplicateCandidateDTO>> getDuplicates(
+      @RequestParam(defaultValue = "${patient.duplicates.default-limit:50}") int limit) {
+    return ResponseEntity.ok().body(patientDuplicateDetector.topCandidates(limit));
+  }
+
+  // Also served from the duplicate index; only a patient without candidates
+  // is looked up, so an unknown id answers 400 like GET /{id}
+  @GetMapping("/{id}/duplicates")
+  @Operation(summary = "Get likely duplicates of a Patient")
+  public ResponseEntity<List<DuplicateCandidateDTO>> getPatientDuplicates(
+      @PathVariable UUID id) {
+    return ResponseEntity.ok().body(patientDuplicateDetector.candidatesOf(id));
+  }
+
+  // Tagged with the row version, so the tag is the same on every replica and
+  // only changes when this patient does. Billing status changes keep the
+  // version and are part of the tag too. The patient usually comes from the
+  // response cache; Spring answers a matching If-None-Match with 304, and
+  // responses vary by Accept because JSON and protobuf share the tag.
+  @GetMapping("/{id}")
+  @Operation(summary = "Get a Patient by ID")
+  public ResponseEntity<PatientResponseDTO> getPatient(@PathVariable UUID id) {
+    PatientResponseDTO patient = patientService.getPatient(id);
+    String etag = "\"" + patient.getVersion() + "-" + patient.getBillingStatus()
+        + "\"";
+    return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT)
+        .cacheControl(CacheControl.noCache()).body(patient);
   }
 
   @PostMapping
   @Operation(summary = "Create a new Patient")
   public ResponseEntity<PatientResponseDTO> createPatient(
       @Validated({Default.class, CreatePatientValidationGroup.class})
-      @RequestBody PatientRequestDTO patientRequestDTO) {
+      @RequestBody PatientRequestDTO patientRequestDTO,
+      @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+      String idempotencyKey) {
 
-    PatientResponseDTO patientResponseDTO = patientService.createPatient(
-        patientRequestDTO);
+    if (idempotencyKey == null) {
+      PatientResponseDTO patientResponseDTO = patientService.createPatient(
+          patientRequestDTO);
 
-    return ResponseEntity.ok().body(patientResponseDTO);
+      return ResponseEntity.ok().body(patientResponseDTO);
+    }
+
+    IdempotencyKeyStore.Result result = idempotencyKeyStore.execute(
+        idempotencyKey, patientRequestDTO,
+        () -> patientService.createPatient(patientRequestDTO));
+
+    return ResponseEntity.ok()
+        .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+        .body(result.response());
+  }
+
+  // JSON only, like /search: a protobuf body gets 415, a protobuf Accept 406
+  @PostMapping("/batch")
+  @Operation(summary = "Create many Patients in one request",
+      description = "JSON only; application/x-protobuf is not accepted or offered")
+  public ResponseEntity<PatientBatchResponseDTO> createPatients(
+      @RequestBody List<PatientRequestDTO> patientRequestDTOs) {
+
+    // Items are validated one by one so a bad item fails alone, not the batch
+    PatientBatchResponseDTO patientBatchResponseDTO =
+        patientBatchService.createPatients(patientRequestDTOs);
+
+    return ResponseEntity.ok().body(patientBatchResponseDTO);
+  }
+
+  // The body is read as it arrives; only a few chunks of it are in memory
+  @PostMapping(value = "/import", consumes = "text/csv")
+  @Operation(summary = "Import Patients from a CSV file")
+  public ResponseEntity<PatientImportResponseDTO> importPatients(
+      InputStream csv) {
+    return ResponseEntity.ok().body(patientImportService.importPatients(csv));
   }
 
   @PutMapping("/{id}")
@@ -61,6 +217,17 @@ public class PatientController {
     return ResponseEntity.ok().body(patientResponseDTO);
   }
 
+  @PatchMapping("/{id}")
+  @Operation(summary = "Update some fields of a Patient")
+  public ResponseEntity<PatientResponseDTO> patchPatient(@PathVariable UUID id,
+      @Validated @RequestBody PatientPatchRequestDTO patientPatchRequestDTO) {
+
+    PatientResponseDTO patientResponseDTO = patientService.patchPatient(id,
+        patientPatchRequestDTO);
+
+    return ResponseEntity.ok().body(patientResponseDTO);
+  }
+
   @DeleteMapping("/{id}")
   @Operation(summary = "Delete a Patient")
   public ResponseEntity<Void> deletePatient(@PathVariable UUID id) {
@@ -0,0 +1,43 @@
+package com.pm.patientservice.dto;
+
+public class DuplicateCandidateDTO {
+  private String patientId;
+  private String candidateId;
+  private double score;
+
+  public DuplicateCandidateDTO() {
+  }
+
+  // Score is between 0 and 1; pairs below patient.duplicates.min-score are
+  // never reported
+  public DuplicateCandidateDTO(String patientId, String candidateId,
+      double score) {
+    this.patientId = patientId;
+    this.candidateId = candidateId;
+    this.score = score;
+  }
+
+  public String getPatientId() {
+    return patientId;
+  }
+
+  public void setPatientId(String patientId) {
+    this.patientId = patientId;
+  }
+
+  public String getCandidateId() {
+    return candidateId;
+  }
+
+  public void setCandidateId(String candidateId) {
+    this.candidateId = candidateId;
+  }
+
+  public double getScore() {
+    return score;
+  }
+
+  public void setScore(double score) {
+    this.score = score;
+  }
+}
@@ -0,0 +1,60 @@
+package com.pm.patientservice.dto;
+
+import java.util.Map;
+
+public class PatientBatchItemResultDTO {
+  private int index;
+  private String status;
+  private PatientResponseDTO patient;
+  private Map<String, String> errors;
+
+  public static PatientBatchItemResultDTO created(int index,
+      PatientResponseDTO patient) {
+    PatientBatchItemResultDTO result = new PatientBatchItemResultDTO();
+    result.setIndex(index);
+    result.setStatus("CREATED");
+    result.setPatient(patient);
+    return result;
+  }
+
+  public static PatientBatchItemResultDTO failed(int index,
+      Map<String, String> errors) {
+    PatientBatchItemResultDTO result = new PatientBatchItemResultDTO();
+    result.setIndex(index);
+    result.setStatus("FAILED");
+    result.setErrors(errors);
+    return result;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public PatientResponseDTO getPatient() {
+    return patient;
+  }
+
+  public void setPatient(PatientResponseDTO patient) {
+    this.patient = patient;
+  }
+
+  public Map<String, String> getErrors() {
+    return errors;
+  }
+
+  public void setErrors(Map<String, String> errors) {
+    this.errors = errors;
+  }
+}
@@ -0,0 +1,43 @@
+package com.pm.patientservice.dto;
+
+import java.util.List;
+
+public class PatientBatchResponseDTO {
+  private int created;
+  private int failed;
+  private List<PatientBatchItemResultDTO> results;
+
+  public PatientBatchResponseDTO() {
+  }
+
+  public PatientBatchResponseDTO(List<PatientBatchItemResultDTO> results) {
+    this.results = results;
+    this.created = (int) results.stream()
+        .filter(result -> "CREATED".equals(result.getStatus())).count();
+    this.failed = results.size() - created;
+  }
+
+  public int getCreated() {
+    return created;
+  }
+
+  public void setCreated(int created) {
+    this.created = created;
+  }
+
+  public int getFailed() {
+    return failed;
+  }
+
+  public void setFailed(int failed) {
+    this.failed = failed;
+  }
+
+  public List<PatientBatchItemResultDTO> getResults() {
+    return results;
+  }
+
+  public void setResults(List<PatientBatchItemResultDTO> results) {
+    this.results = results;
+  }
+}
@@ -0,0 +1,93 @@
+package com.pm.patientservice.dto;
+
+import java.util.List;
+
+public class PatientImportResponseDTO {
+  private long rows;
+  private long imported;
+  private long invalid;
+  private long duplicates;
+  private List<PatientImportRowErrorDTO> errors;
+  private boolean errorsTruncated;
+  // Set when reading stopped at a malformed row; rows after it were not read
+  private Long malformedAtRow;
+  private String error;
+
+  public PatientImportResponseDTO() {
+  }
+
+  public PatientImportResponseDTO(long rows, long imported, long invalid,
+      long duplicates, List<PatientImportRowErrorDTO> errors,
+      boolean errorsTruncated) {
+    this.rows = rows;
+    this.imported = imported;
+    this.invalid = invalid;
+    this.duplicates = duplicates;
+    this.errors = errors;
+    this.errorsTruncated = errorsTruncated;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public void setRows(long rows) {
+    this.rows = rows;
+  }
+
+  public long getImported() {
+    return imported;
+  }
+
+  public void setImported(long imported) {
+    this.imported = imported;
+  }
+
+  public long getInvalid() {
+    return invalid;
+  }
+
+  public void setInvalid(long invalid) {
+    this.invalid = invalid;
+  }
+
+  public long getDuplicates() {
+    return duplicates;
+  }
+
+  public void setDuplicates(long duplicates) {
+    this.duplicates = duplicates;
+  }
+
+  public List<PatientImportRowErrorDTO> getErrors() {
+    return errors;
+  }
+
+  public void setErrors(List<PatientImportRowErrorDTO> errors) {
+    this.errors = errors;
+  }
+
+  public boolean isErrorsTruncated() {
+    return errorsTruncated;
+  }
+
+  public void setErrorsTruncated(boolean errorsTruncated) {
+    this.errorsTruncated = errorsTruncated;
+  }
+
+  public Long getMalformedAtRow() {
+    return malformedAtRow;
+  }
+
+  public void setMalformedAtRow(Long malformedAtRow) {
+    this.malformedAtRow = malformedAtRow;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
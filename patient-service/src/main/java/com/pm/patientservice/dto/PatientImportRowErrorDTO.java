@@ -0,0 +1,33 @@
+package com.pm.patientservice.dto;
+
+import java.util.Map;
+
+public class PatientImportRowErrorDTO {
+  private long row;
+  private Map<String, String> errors;
+
+  public PatientImportRowErrorDTO() {
+  }
+
+  // Rows are numbered from 1, not counting the header
+  public PatientImportRowErrorDTO(long row, Map<String, String> errors) {
+    this.row = row;
+    this.errors = errors;
+  }
+
+  public long getRow() {
+    return row;
+  }
+
+  public void setRow(long row) {
+    this.row = row;
+  }
+
+  public Map<String, String> getErrors() {
+    return errors;
+  }
+
+  public void setErrors(Map<String, String> errors) {
+    this.errors = errors;
+  }
+}
@@ -0,0 +1,71 @@
+package com.pm.patientservice.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+// Fields left out (null) keep their current value; those present follow the
+// same rules as PatientRequestDTO, so they must not be blank (@NotBlank
+// itself would also reject null). version is the one the client last read.
+public class PatientPatchRequestDTO {
+
+  private static final String NOT_BLANK = "(?s).*\\S.*";
+
+  @Pattern(regexp = NOT_BLANK, message = "Name cannot be blank")
+  @Size(max = 100, message = "Name cannot exceed 100 characters")
+  private String name;
+
+  @Pattern(regexp = NOT_BLANK, message = "Email cannot be blank")
+  @Email(message = "Email should be valid")
+  private String email;
+
+  @Pattern(regexp = NOT_BLANK, message = "Address cannot be blank")
+  private String address;
+
+  @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Date of birth must be yyyy-MM-dd")
+  private String dateOfBirth;
+
+  @NotNull(message = "Version is required")
+  private Long version;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public void setEmail(String email) {
+    this.email = email;
+  }
+
+  public String getAddress() {
+    return address;
+  }
+
+  public void setAddress(String address) {
+    this.address = address;
+  }
+
+  public String getDateOfBirth() {
+    return dateOfBirth;
+  }
+
+  public void setDateOfBirth(String dateOfBirth) {
+    this.dateOfBirth = dateOfBirth;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+}
@@ -6,6 +6,8 @@ public class PatientResponseDTO {
   private String email;
   private String address;
   private String dateOfBirth;
+  private String billingStatus;
+  private Long version;
 
   public String getId() {
     return id;
@@ -47,5 +49,20 @@ public class PatientResponseDTO {
     this.dateOfBirth = dateOfBirth;
   }
 
+  public String getBillingStatus() {
+    return billingStatus;
+  }
+
+  public void setBillingStatus(String billingStatus) {
+    this.billingStatus = billingStatus;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
 
 }
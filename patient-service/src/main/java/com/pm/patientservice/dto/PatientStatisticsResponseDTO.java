@@ -0,0 +1,43 @@
+package com.pm.patientservice.dto;
+
+import java.util.Map;
+
+public class PatientStatisticsResponseDTO {
+  private long total;
+  private Map<String, Long> registrationsPerMonth;
+  private Map<String, Long> ageBuckets;
+
+  public PatientStatisticsResponseDTO() {
+  }
+
+  public PatientStatisticsResponseDTO(long total,
+      Map<String, Long> registrationsPerMonth, Map<String, Long> ageBuckets) {
+    this.total = total;
+    this.registrationsPerMonth = registrationsPerMonth;
+    this.ageBuckets = ageBuckets;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  public Map<String, Long> getRegistrationsPerMonth() {
+    return registrationsPerMonth;
+  }
+
+  public void setRegistrationsPerMonth(Map<String, Long> registrationsPerMonth) {
+    this.registrationsPerMonth = registrationsPerMonth;
+  }
+
+  public Map<String, Long> getAgeBuckets() {
+    return ageBuckets;
+  }
+
+  public void setAgeBuckets(Map<String, Long> ageBuckets) {
+    this.ageBuckets = ageBuckets;
+  }
+}
@@ -1,10 +1,15 @@
 package com.pm.patientservice.exception;
 
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -46,4 +51,98 @@ public class GlobalExceptionHandler {
     errors.put("message", "Patient not found");
     return ResponseEntity.badRequest().body(errors);
   }
+
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<Map<String, String>> handleInvalidCursorException(
+      InvalidCursorException ex) {
+    log.warn("Invalid cursor {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Invalid page cursor");
+    return ResponseEntity.badRequest().body(errors);
+  }
+
+  @ExceptionHandler(BatchSizeExceededException.class)
+  public ResponseEntity<Map<String, String>> handleBatchSizeExceededException(
+      BatchSizeExceededException ex) {
+    log.warn("Batch rejected {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", ex.getMessage());
+    return ResponseEntity.badRequest().body(errors);
+  }
+
+  @ExceptionHandler(InvalidImportFileException.class)
+  public ResponseEntity<Map<String, String>> handleInvalidImportFileException(
+      InvalidImportFileException ex) {
+    log.warn("Import rejected {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", ex.getMessage());
+    return ResponseEntity.badRequest().body(errors);
+  }
+
+  @ExceptionHandler(InvalidIdempotencyKeyException.class)
+  public ResponseEntity<Map<String, String>> handleInvalidIdempotencyKeyException(
+      InvalidIdempotencyKeyException ex) {
+    log.warn("Invalid idempotency key {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", ex.getMessage());
+    return ResponseEntity.unprocessableEntity().body(errors);
+  }
+
+  @ExceptionHandler(IdempotentRequestInProgressException.class)
+  public ResponseEntity<Map<String, String>> handleIdempotentRequestInProgressException(
+      IdempotentRequestInProgressException ex) {
+    log.warn("Idempotent request in progress {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Request in progress, retry later");
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .header(HttpHeaders.RETRY_AFTER,
+            String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+        .body(errors);
+  }
+
+  @ExceptionHandler(PatientVersionConflictException.class)
+  public ResponseEntity<Map<String, String>> handlePatientVersionConflictException(
+      PatientVersionConflictException ex) {
+    log.warn("Patient version conflict {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Patient was modified by another request");
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
+  }
+
+  // A PUT whose transaction overlapped another edit of the same patient
+  @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+  public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(
+      ObjectOptimisticLockingFailureException ex) {
+    log.warn("Optimistic locking failure {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Patient was modified by another request");
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
+  }
+
+  @ExceptionHandler(DateTimeParseException.class)
+  public ResponseEntity<Map<String, String>> handleDateTimeParseException(
+      DateTimeParseException ex) {
+    log.warn("Invalid date {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Invalid date: " + ex.getParsedString());
+    return ResponseEntity.badRequest().body(errors);
+  }
+
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  public ResponseEntity<Map<String, String>> handleDataIntegrityViolationException(
+      DataIntegrityViolationException ex) {
+    log.warn("Data integrity violation {}", ex.getMostSpecificCause().getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Request conflicts with existing data");
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
+  }
 }
@@ -0,0 +1,18 @@
+package com.pm.patientservice.exception;
+
+import java.time.Duration;
+
+public class IdempotentRequestInProgressException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public IdempotentRequestInProgressException(String message,
+      Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,98 @@
+package com.pm.patientservice.filter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Additive-increase/multiplicative-decrease limit on concurrent requests, as
+// TCP does for its congestion window. Every request that finishes within the
+// latency threshold while the limit is actually in use raises the limit by
+// one; a slow or failed request cuts it by the backoff ratio, at most once
+// per threshold so a burst of slow completions counts as one signal.
+//
+// Requests over the limit are not queued: waiting for a slot would only move
+// the queue from Tomcat's threads to here. Updates are lock-free (CAS), since
+// every request goes through them and a monitor would pin virtual threads.
+public class AimdConcurrencyLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private final AtomicInteger limit;
+  private final AtomicLong lastDecreaseNanos;
+
+  public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+      Duration latencyThreshold, double backoffRatio) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.backoffRatio = backoffRatio;
+    this.limit = new AtomicInteger(Math.clamp(initialLimit, minLimit, maxLimit));
+    this.lastDecreaseNanos = new AtomicLong(
+        System.nanoTime() - latencyThresholdNanos);
+  }
+
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit.get()) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  // Only for acquired slots; latency is the time the request held the slot
+  public void release(long latencyNanos, boolean failed) {
+    int inFlightBefore = inFlight.getAndDecrement();
+    update(inFlightBefore, latencyNanos, failed, System.nanoTime());
+  }
+
+  public int getLimit() {
+    return limit.get();
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public void bindTo(MeterRegistry meterRegistry, String type) {
+    Gauge.builder("patient.concurrency.limit", this,
+            AimdConcurrencyLimiter::getLimit)
+        .description("Current adaptive limit on concurrent requests")
+        .tag("type", type)
+        .register(meterRegistry);
+    Gauge.builder("patient.concurrency.in.flight", this,
+            AimdConcurrencyLimiter::getInFlight)
+        .description("Requests currently holding a slot")
+        .tag("type", type)
+        .register(meterRegistry);
+  }
+
+  void update(int inFlightBefore, long latencyNanos, boolean failed,
+      long nowNanos) {
+    if (failed || latencyNanos > latencyThresholdNanos) {
+      // The request that moves lastDecreaseNanos is the one that backs off
+      long last = lastDecreaseNanos.get();
+      if (nowNanos - last >= latencyThresholdNanos
+          && lastDecreaseNanos.compareAndSet(last, nowNanos)) {
+        limit.updateAndGet(
+            current -> Math.max(minLimit, (int) (current * backoffRatio)));
+      }
+      return;
+    }
+
+    // A limit that is never reached says nothing about capacity, so it only
+    // grows while at least half of it is in use
+    limit.updateAndGet(current -> inFlightBefore * 2 >= current
+        ? Math.min(maxLimit, current + 1)
+        : current);
+  }
+}
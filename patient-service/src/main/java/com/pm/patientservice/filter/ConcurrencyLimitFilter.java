@@ -0,0 +1,146 @@
+package com.pm.patientservice.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Sheds /patients requests with 503 once Postgres or billing-service slow
+// down, instead of letting them pile up until every Tomcat thread is blocked.
+// Reads and writes have separate limits so slow writes (billing calls) do not
+// take capacity from reads, and the reverse. POST /patients/batch has a
+// limit of its own: a batch of up to patient.batch.max-size patients takes
+// far longer than a single write without anything being wrong, and would
+// otherwise keep cutting the write limit.
+//
+// The NDJSON export is not limited: its request thread returns as soon as the
+// streaming starts, and its length says nothing about the database's health.
+// Neither does the length of a CSV import, which is as long as the file.
+@Component
+@ConditionalOnProperty(name = "patient.concurrency.enabled", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private static final String REJECTED_BODY =
+      "{\"message\":\"Service is overloaded, retry later\"}";
+
+  private final AimdConcurrencyLimiter readLimiter;
+  private final AimdConcurrencyLimiter writeLimiter;
+  private final AimdConcurrencyLimiter batchLimiter;
+  private final String retryAfterSeconds;
+  private final Counter readsRejected;
+  private final Counter writesRejected;
+  private final Counter batchesRejected;
+
+  @Autowired
+  public ConcurrencyLimitFilter(
+      @Value("${patient.concurrency.read.initial-limit:20}") int readInitialLimit,
+      @Value("${patient.concurrency.read.max-limit:100}") int readMaxLimit,
+      @Value("${patient.concurrency.read.latency-threshold:PT0.5S}") Duration readLatencyThreshold,
+      @Value("${patient.concurrency.write.initial-limit:10}") int writeInitialLimit,
+      @Value("${patient.concurrency.write.max-limit:50}") int writeMaxLimit,
+      @Value("${patient.concurrency.write.latency-threshold:PT2S}") Duration writeLatencyThreshold,
+      @Value("${patient.concurrency.batch.initial-limit:2}") int batchInitialLimit,
+      @Value("${patient.concurrency.batch.max-limit:10}") int batchMaxLimit,
+      @Value("${patient.concurrency.batch.latency-threshold:PT30S}") Duration batchLatencyThreshold,
+      @Value("${patient.concurrency.min-limit:2}") int minLimit,
+      @Value("${patient.concurrency.backoff-ratio:0.9}") double backoffRatio,
+      @Value("${patient.concurrency.retry-after:PT1S}") Duration retryAfter,
+      MeterRegistry meterRegistry) {
+    this(new AimdConcurrencyLimiter(readInitialLimit, minLimit, readMaxLimit,
+            readLatencyThreshold, backoffRatio),
+        new AimdConcurrencyLimiter(writeInitialLimit, minLimit, writeMaxLimit,
+            writeLatencyThreshold, backoffRatio),
+        new AimdConcurrencyLimiter(batchInitialLimit, minLimit, batchMaxLimit,
+            batchLatencyThreshold, backoffRatio),
+        retryAfter, meterRegistry);
+  }
+
+  ConcurrencyLimitFilter(AimdConcurrencyLimiter readLimiter,
+      AimdConcurrencyLimiter writeLimiter, AimdConcurrencyLimiter batchLimiter,
+      Duration retryAfter, MeterRegistry meterRegistry) {
+    this.readLimiter = readLimiter;
+    this.writeLimiter = writeLimiter;
+    this.batchLimiter = batchLimiter;
+    this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+    readLimiter.bindTo(meterRegistry, "read");
+    writeLimiter.bindTo(meterRegistry, "write");
+    batchLimiter.bindTo(meterRegistry, "batch");
+    this.readsRejected = createRejectedCounter("read", meterRegistry);
+    this.writesRejected = createRejectedCounter("write", meterRegistry);
+    this.batchesRejected = createRejectedCounter("batch", meterRegistry);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String path = path(request);
+    return !(path.equals("/patients") || path.startsWith("/patients/"))
+        || path.equals("/patients/export") || path.equals("/patients/import");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request,
+      HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+
+    AimdConcurrencyLimiter limiter;
+    Counter rejected;
+    if (HttpMethod.GET.matches(request.getMethod())
+        || HttpMethod.HEAD.matches(request.getMethod())) {
+      limiter = readLimiter;
+      rejected = readsRejected;
+    } else if (path(request).equals("/patients/batch")) {
+      limiter = batchLimiter;
+      rejected = batchesRejected;
+    } else {
+      limiter = writeLimiter;
+      rejected = writesRejected;
+    }
+
+    if (!limiter.tryAcquire()) {
+      rejected.increment();
+      reject(response);
+      return;
+    }
+
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      filterChain.doFilter(request, response);
+      failed = response.getStatus() >= 500;
+    } finally {
+      limiter.release(System.nanoTime() - start, failed);
+    }
+  }
+
+  private static String path(HttpServletRequest request) {
+    return request.getRequestURI().substring(request.getContextPath().length());
+  }
+
+  private void reject(HttpServletResponse response) throws IOException {
+    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.getWriter().write(REJECTED_BODY);
+  }
+
+  private static Counter createRejectedCounter(String type,
+      MeterRegistry meterRegistry) {
+    return Counter.builder("patient.concurrency.rejected")
+        .description("Requests rejected with 503 because the limit was reached")
+        .tag("type", type)
+        .register(meterRegistry);
+  }
+}
@@ -1,10 +1,26 @@
 package com.pm.patientservice.grpc;
 
+import billing.BillingBatchRequest;
+import billing.BillingBatchResponse;
 import billing.BillingRequest;
 import billing.BillingResponse;
 import billing.BillingServiceGrpc;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.pm.patientservice.model.Patient;
+import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,10 +32,17 @@ public class BillingServiceGrpcClient {
   private static final Logger log = LoggerFactory.getLogger(
       BillingServiceGrpcClient.class);
   private final BillingServiceGrpc.BillingServiceBlockingStub blockingStub;
+  private final BillingServiceGrpc.BillingServiceFutureStub futureStub;
+  private final long deadlineMs;
+  private final long batchDeadlineMs;
+  private final MeterRegistry meterRegistry;
 
   public BillingServiceGrpcClient(
       @Value("${billing.service.address:localhost}") String serverAddress,
-      @Value("${billing.service.grpc.port:9001}") int serverPort) {
+      @Value("${billing.service.grpc.port:9001}") int serverPort,
+      @Value("${billing.service.grpc.deadline-ms:2000}") long deadlineMs,
+      @Value("${billing.service.grpc.batch-deadline-ms:10000}") long batchDeadlineMs,
+      MeterRegistry meterRegistry) {
 
     log.info("Connecting to Billing Service GRPC service at {}:{}",
         serverAddress, serverPort);
@@ -28,6 +51,19 @@ public class BillingServiceGrpcClient {
         serverPort).usePlaintext().build();
 
     blockingStub = BillingServiceGrpc.newBlockingStub(channel);
+    futureStub = BillingServiceGrpc.newFutureStub(channel);
+    this.deadlineMs = deadlineMs;
+    this.batchDeadlineMs = batchDeadlineMs;
+    this.meterRegistry = meterRegistry;
+
+    // One gauge per state, 1 for the channel's current state and 0 otherwise
+    for (ConnectivityState state : ConnectivityState.values()) {
+      Gauge.builder("billing.grpc.channel.state", channel,
+              c -> c.getState(false) == state ? 1 : 0)
+          .description("Connectivity state of the billing-service channel")
+          .tag("state", state.name())
+          .register(meterRegistry);
+    }
   }
 
   public BillingResponse createBillingAccount(String patientId, String name,
@@ -36,8 +72,96 @@ public class BillingServiceGrpcClient {
     BillingRequest request = BillingRequest.newBuilder().setPatientId(patientId)
         .setName(name).setEmail(email).build();
 
-    BillingResponse response = blockingStub.createBillingAccount(request);
+    BillingResponse response = timeCall("CreateBillingAccount",
+        () -> blockingStub
+            .withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+            .createBillingAccount(request));
     log.info("Received response from billing service via GRPC: {}", response);
     return response;
   }
+
+  public CompletableFuture<BillingResponse> createBillingAccountAsync(
+      String patientId, String name, String email) {
+
+    BillingRequest request = BillingRequest.newBuilder().setPatientId(patientId)
+        .setName(name).setEmail(email).build();
+
+    return timeAsyncCall("CreateBillingAccount", () -> futureStub
+        .withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+        .createBillingAccount(request));
+  }
+
+  public BillingBatchResponse createBillingAccounts(List<Patient> patients) {
+    BillingBatchResponse response = timeCall("CreateBillingAccounts",
+        () -> blockingStub
+            .withDeadlineAfter(batchDeadlineMs, TimeUnit.MILLISECONDS)
+            .createBillingAccounts(toBatchRequest(patients)));
+    log.info("Received {} billing accounts from billing service via GRPC",
+        response.getResponsesCount());
+    return response;
+  }
+
+  public CompletableFuture<BillingBatchResponse> createBillingAccountsAsync(
+      List<Patient> patients) {
+    return timeAsyncCall("CreateBillingAccounts", () -> futureStub
+        .withDeadlineAfter(batchDeadlineMs, TimeUnit.MILLISECONDS)
+        .createBillingAccounts(toBatchRequest(patients)));
+  }
+
+  private BillingBatchRequest toBatchRequest(List<Patient> patients) {
+    BillingBatchRequest.Builder request = BillingBatchRequest.newBuilder();
+    patients.forEach(patient -> request.addRequests(BillingRequest.newBuilder()
+        .setPatientId(patient.getId().toString())
+        .setName(patient.getName())
+        .setEmail(patient.getEmail())));
+    return request.build();
+  }
+
+  // Recorded per method and gRPC status code, so failures by cause are the
+  // counts of the non-OK series
+  private <T> T timeCall(String method, Supplier<T> call) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      T response = call.get();
+      sample.stop(callTimer(method, Status.Code.OK));
+      return response;
+    } catch (RuntimeException e) {
+      sample.stop(callTimer(method, Status.fromThrowable(e).getCode()));
+      throw e;
+    }
+  }
+
+  private <T> CompletableFuture<T> timeAsyncCall(String method,
+      Supplier<ListenableFuture<T>> call) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    return toCompletableFuture(call.get()).whenComplete((response, error) ->
+        sample.stop(callTimer(method, error == null
+            ? Status.Code.OK : Status.fromThrowable(error).getCode())));
+  }
+
+  private Timer callTimer(String method, Status.Code code) {
+    return Timer.builder("billing.grpc.client.calls")
+        .description("Latency of billing-service gRPC calls")
+        .tag("method", method)
+        .tag("status", code.name())
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private static <T> CompletableFuture<T> toCompletableFuture(
+      ListenableFuture<T> listenableFuture) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    Futures.addCallback(listenableFuture, new FutureCallback<>() {
+      @Override
+      public void onSuccess(T result) {
+        future.complete(result);
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        future.completeExceptionally(t);
+      }
+    }, MoreExecutors.directExecutor());
+    return future;
+  }
 }
@@ -1,34 +1,26 @@
 package com.pm.patientservice.kafka;
-import com.pm.patientservice.model.Patient;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import patient.events.PatientEvent;
 
 @Service
 public class KafkaProducer {
 
-  private static final Logger log = LoggerFactory.getLogger(
-      KafkaProducer.class);
   private final KafkaTemplate<String, byte[]> kafkaTemplate;
 
   public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
     this.kafkaTemplate = kafkaTemplate;
   }
 
-  public void sendEvent(Patient patient) {
-    PatientEvent event = PatientEvent.newBuilder()
-        .setPatientId(patient.getId().toString())
-        .setName(patient.getName())
-        .setEmail(patient.getEmail())
-        .setEventType("PATIENT_CREATED")
-        .build();
+  // Records with the same key go to the same partition, and the idempotent
+  // producer keeps them in send order there
+  public CompletableFuture<SendResult<String, byte[]>> send(String topic,
+      String key, byte[] payload) {
+    return kafkaTemplate.send(topic, key, payload);
+  }
 
-    try {
-      kafkaTemplate.send("patient", event.toByteArray());
-    } catch (Exception e) {
-      log.error("Error sending PatientCreated event: {}", event);
-    }
+  public void flush() {
+    kafkaTemplate.flush();
   }
 }
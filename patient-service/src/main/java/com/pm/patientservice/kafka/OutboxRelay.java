@@ -0,0 +1,157 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class OutboxRelay {
+
+  private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final KafkaProducer kafkaProducer;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final long sendTimeoutMs;
+  private final Duration retention;
+  private final MeterRegistry meterRegistry;
+  private final Timer sendTimer;
+  private final Timer ackTimer;
+  private final Timer lagTimer;
+
+  public OutboxRelay(OutboxEventRepository outboxEventRepository,
+      KafkaProducer kafkaProducer, TransactionTemplate transactionTemplate,
+      @Value("${patient.outbox.batch-size:500}") int batchSize,
+      @Value("${patient.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+      @Value("${patient.outbox.retention:PT24H}") Duration retention,
+      MeterRegistry meterRegistry) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.kafkaProducer = kafkaProducer;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.sendTimeoutMs = sendTimeoutMs;
+    this.retention = retention;
+    this.meterRegistry = meterRegistry;
+
+    // send: handing the record to the producer (blocks only when its buffer
+    // is full or metadata is missing); ack: from send until the broker acks;
+    // lag: from the patient change committing until its event is acked
+    this.sendTimer = Timer.builder("patient.outbox.send")
+        .description("Time to hand an outbox event to the Kafka producer")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.ackTimer = Timer.builder("patient.outbox.ack")
+        .description("Time from sending an outbox event until Kafka acks it")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.lagTimer = Timer.builder("patient.outbox.lag")
+        .description("Time from an outbox event being recorded until Kafka acks it")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  // Delivery is at least once: an event whose ack times out, or that comes
+  // after a failed one in the batch, is sent again on the next round even if
+  // Kafka already has it. Consumers drop repeats and stale events by
+  // comparing the event version with the last one they applied.
+  //
+  // Only one relay publishes at a time: the others find the oldest pending
+  // events locked and skip the round, so a replica never publishes a newer
+  // event for a patient while another is still sending an older one.
+  @Scheduled(fixedDelayString = "${patient.outbox.poll-interval-ms:500}")
+  public void relay() {
+    try {
+      transactionTemplate.executeWithoutResult(status -> relayBatch());
+    } catch (PessimisticLockingFailureException e) {
+      log.debug("Outbox is being relayed by another instance");
+    }
+  }
+
+  private void relayBatch() {
+    List<OutboxEvent> events = outboxEventRepository
+        .findByPublishedAtIsNullOrderByCreatedAtAsc(Limit.of(batchSize));
+
+    if (events.isEmpty()) {
+      return;
+    }
+
+    // Queue every send before waiting on any ack so the producer can batch them
+    List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+    for (OutboxEvent event : events) {
+      sends.add(send(event));
+    }
+    kafkaProducer.flush();
+
+    // Only the run of events before the first failure is marked delivered, so
+    // a retry never publishes an older event after a newer one
+    List<UUID> delivered = new ArrayList<>(events.size());
+    for (int i = 0; i < events.size(); i++) {
+      try {
+        sends.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        delivered.add(events.get(i).getId());
+      } catch (Exception e) {
+        log.error("Error publishing outbox event {}, will retry: {}",
+            events.get(i).getId(), e.getMessage());
+        meterRegistry.counter("patient.outbox.publish.failures",
+            "cause", rootCause(e).getClass().getSimpleName()).increment();
+        break;
+      }
+    }
+
+    if (!delivered.isEmpty()) {
+      outboxEventRepository.markPublished(delivered, Instant.now());
+    }
+    log.debug("Relayed {} of {} outbox events", delivered.size(), events.size());
+  }
+
+  private CompletableFuture<?> send(OutboxEvent event) {
+    long sendStart = System.nanoTime();
+    CompletableFuture<?> send = sendTimer.record(() ->
+        kafkaProducer.send(event.getTopic(), event.getAggregateId(),
+            event.getPayload()));
+
+    return send.whenComplete((result, error) -> {
+      if (error == null) {
+        ackTimer.record(System.nanoTime() - sendStart, TimeUnit.NANOSECONDS);
+        lagTimer.record(Duration.between(event.getCreatedAt(), Instant.now()));
+      }
+    });
+  }
+
+  private static Throwable rootCause(Throwable e) {
+    Throwable cause = e;
+    while (cause.getCause() != null && cause.getCause() != cause) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  @Scheduled(fixedDelayString = "${patient.outbox.cleanup-interval-ms:3600000}")
+  @Transactional
+  public void deletePublishedEvents() {
+    int deleted = outboxEventRepository.deletePublishedBefore(
+        Instant.now().minus(retention));
+
+    if (deleted > 0) {
+      log.info("Deleted {} published outbox events", deleted);
+    }
+  }
+}
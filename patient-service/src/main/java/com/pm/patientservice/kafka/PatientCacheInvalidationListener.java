@@ -0,0 +1,83 @@
+package com.pm.patientservice.kafka;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.service.PatientDuplicateDetector;
+import com.pm.patientservice.service.PatientResponseCache;
+import com.pm.patientservice.service.PatientSearchIndex;
+import com.pm.patientservice.service.PatientVersionStamp;
+import com.pm.patientservice.service.RecentPatientWrites;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import patient.events.PatientEvent;
+
+@Service
+public class PatientCacheInvalidationListener {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientCacheInvalidationListener.class);
+
+  private final PatientResponseCache patientResponseCache;
+  private final Cache secondLevelCache;
+  private final PatientVersionStamp patientVersionStamp;
+  private final RecentPatientWrites recentPatientWrites;
+  private final PatientSearchIndex patientSearchIndex;
+  private final PatientDuplicateDetector patientDuplicateDetector;
+
+  public PatientCacheInvalidationListener(
+      PatientResponseCache patientResponseCache,
+      EntityManagerFactory entityManagerFactory,
+      PatientVersionStamp patientVersionStamp,
+      RecentPatientWrites recentPatientWrites,
+      PatientSearchIndex patientSearchIndex,
+      PatientDuplicateDetector patientDuplicateDetector) {
+    this.patientResponseCache = patientResponseCache;
+    this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class)
+        .getCache();
+    this.patientVersionStamp = patientVersionStamp;
+    this.recentPatientWrites = recentPatientWrites;
+    this.patientSearchIndex = patientSearchIndex;
+    this.patientDuplicateDetector = patientDuplicateDetector;
+  }
+
+  // Every replica needs every event, so each instance consumes with its own
+  // consumer group instead of sharing one. Billing status changes arrive on
+  // their own topic and only need the eviction.
+  @KafkaListener(topics = {"patient", "patient-billing"},
+      groupId = "patient-service-cache-${random.uuid}",
+      properties = "auto.offset.reset=latest",
+      autoStartup = "${patient.cache.invalidation.enabled:true}")
+  public void consumeEvent(byte[] event) {
+    try {
+      PatientEvent patientEvent = PatientEvent.parseFrom(event);
+
+      UUID patientId = UUID.fromString(patientEvent.getPatientId());
+      if (!"PATIENT_CREATED".equals(patientEvent.getEventType())) {
+        patientResponseCache.evict(patientId);
+        secondLevelCache.evictEntityData(Patient.class, patientId);
+      }
+      // The next miss must not refill the cache from a lagging replica
+      recentPatientWrites.record(patientId);
+      // A new patient changes the collection, so every event moves the stamp
+      patientVersionStamp.markChanged();
+      // Events for this instance's own writes re-read a patient that is
+      // already indexed; that also repairs updates to one patient whose
+      // commits were applied to the index out of order. Billing status is
+      // neither searched nor compared for duplicates.
+      if (!PatientEventOutbox.PATIENT_BILLING_UPDATED.equals(
+          patientEvent.getEventType())) {
+        patientSearchIndex.reindex(List.of(patientId));
+        patientDuplicateDetector.reindex(List.of(patientId));
+      }
+    } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+      log.error("Error deserializing event {}", e.getMessage());
+    }
+  }
+}
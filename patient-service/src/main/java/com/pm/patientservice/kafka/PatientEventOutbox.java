@@ -0,0 +1,105 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import com.pm.patientservice.service.PatientDuplicateDetector;
+import com.pm.patientservice.service.PatientSearchIndex;
+import com.pm.patientservice.service.PatientVersionStamp;
+import com.pm.patientservice.service.RecentPatientWrites;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import patient.events.PatientEvent;
+
+@Component
+public class PatientEventOutbox {
+
+  static final String PATIENT_TOPIC = "patient";
+
+  // Billing status changes leave the version alone (clients' If-Match values
+  // stay valid), so they go to their own topic: consumers that keep the
+  // latest version of each patient would otherwise drop them as duplicates
+  static final String PATIENT_BILLING_TOPIC = "patient-billing";
+
+  // Only the billing status changed: consumers drop cached copies of the
+  // patient, but its details (and version) are as in its previous event
+  public static final String PATIENT_BILLING_UPDATED = "PATIENT_BILLING_UPDATED";
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final PatientVersionStamp patientVersionStamp;
+  private final RecentPatientWrites recentPatientWrites;
+  private final PatientSearchIndex patientSearchIndex;
+  private final PatientDuplicateDetector patientDuplicateDetector;
+
+  public PatientEventOutbox(OutboxEventRepository outboxEventRepository,
+      PatientVersionStamp patientVersionStamp,
+      RecentPatientWrites recentPatientWrites,
+      PatientSearchIndex patientSearchIndex,
+      PatientDuplicateDetector patientDuplicateDetector) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.patientVersionStamp = patientVersionStamp;
+    this.recentPatientWrites = recentPatientWrites;
+    this.patientSearchIndex = patientSearchIndex;
+    this.patientDuplicateDetector = patientDuplicateDetector;
+  }
+
+  // Events are only recorded as part of the caller's transaction, so an event
+  // exists if and only if the patient change it describes was committed.
+  // Every patient change passes through here, which makes it the one place
+  // that bumps the local version stamp, pins the patient's reads to the
+  // primary for the replica lag, updates the search index and checks the
+  // patient for duplicates (all on commit).
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void enqueue(Patient patient, String eventType) {
+    outboxEventRepository.save(toOutboxEvent(patient, eventType));
+    patientVersionStamp.markChanged();
+    recentPatientWrites.record(patient.getId());
+    if ("PATIENT_DELETED".equals(eventType)) {
+      patientSearchIndex.delete(patient.getId());
+      patientDuplicateDetector.remove(patient.getId());
+    } else {
+      patientSearchIndex.index(List.of(patient));
+      patientDuplicateDetector.index(List.of(patient));
+    }
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void enqueueAll(List<Patient> patients, String eventType) {
+    outboxEventRepository.saveAll(patients.stream()
+        .map(patient -> toOutboxEvent(patient, eventType)).toList());
+    patientVersionStamp.markChanged();
+    recentPatientWrites.recordAll(patients.stream().map(Patient::getId).toList());
+    if (!PATIENT_BILLING_UPDATED.equals(eventType)) {
+      patientSearchIndex.index(patients);
+      patientDuplicateDetector.index(patients);
+    }
+  }
+
+  static byte[] toPayload(Patient patient, String eventType, Instant timestamp) {
+    return PatientEvent.newBuilder()
+        .setPatientId(patient.getId().toString())
+        .setName(patient.getName())
+        .setEmail(patient.getEmail())
+        .setEventType(eventType)
+        .setVersion(patient.getVersion() == null ? 0 : patient.getVersion())
+        .setTimestamp(timestamp.toEpochMilli())
+        .build()
+        .toByteArray();
+  }
+
+  // The patient id is the aggregate id and becomes the Kafka record key
+  private OutboxEvent toOutboxEvent(Patient patient, String eventType) {
+    Instant now = Instant.now();
+    OutboxEvent outboxEvent = new OutboxEvent();
+    outboxEvent.setTopic(PATIENT_BILLING_UPDATED.equals(eventType)
+        ? PATIENT_BILLING_TOPIC : PATIENT_TOPIC);
+    outboxEvent.setAggregateId(patient.getId().toString());
+    outboxEvent.setEventType(eventType);
+    outboxEvent.setPayload(toPayload(patient, eventType, now));
+    outboxEvent.setCreatedAt(now);
+    return outboxEvent;
+  }
+}
@@ -3,6 +3,7 @@ package com.pm.patientservice.mapper;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
 import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
 import java.time.LocalDate;
 
 public class PatientMapper {
@@ -13,6 +14,25 @@ public class PatientMapper {
     patientDTO.setAddress(patient.getAddress());
     patientDTO.setEmail(patient.getEmail());
     patientDTO.setDateOfBirth(patient.getDateOfBirth().toString());
+    if (patient.getBillingStatus() != null) {
+      patientDTO.setBillingStatus(patient.getBillingStatus().name());
+    }
+    patientDTO.setVersion(patient.getVersion());
+
+    return patientDTO;
+  }
+
+  public static PatientResponseDTO toDTO(PatientView patient) {
+    PatientResponseDTO patientDTO = new PatientResponseDTO();
+    patientDTO.setId(patient.id().toString());
+    patientDTO.setName(patient.name());
+    patientDTO.setAddress(patient.address());
+    patientDTO.setEmail(patient.email());
+    patientDTO.setDateOfBirth(patient.dateOfBirth().toString());
+    if (patient.billingStatus() != null) {
+      patientDTO.setBillingStatus(patient.billingStatus().name());
+    }
+    patientDTO.setVersion(patient.version());
 
     return patientDTO;
   }
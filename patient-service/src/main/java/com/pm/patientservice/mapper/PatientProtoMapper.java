@@ -0,0 +1,85 @@
+package com.pm.patientservice.mapper;
+
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientPatchRequestDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import patient.api.Patient;
+import patient.api.PatientPage;
+import patient.api.PatientPatchRequest;
+import patient.api.PatientRequest;
+
+// Between the REST DTOs and their protobuf messages (patient_api.proto).
+// Protobuf has no null strings: unset request fields become null, as if
+// they were missing from the JSON, and null response fields are left unset.
+public class PatientProtoMapper {
+
+  public static Patient toProto(PatientResponseDTO patientDTO) {
+    Patient.Builder patient = Patient.newBuilder();
+    if (patientDTO.getId() != null) {
+      patient.setId(patientDTO.getId());
+    }
+    if (patientDTO.getName() != null) {
+      patient.setName(patientDTO.getName());
+    }
+    if (patientDTO.getEmail() != null) {
+      patient.setEmail(patientDTO.getEmail());
+    }
+    if (patientDTO.getAddress() != null) {
+      patient.setAddress(patientDTO.getAddress());
+    }
+    if (patientDTO.getDateOfBirth() != null) {
+      patient.setDateOfBirth(patientDTO.getDateOfBirth());
+    }
+    if (patientDTO.getBillingStatus() != null) {
+      patient.setBillingStatus(patientDTO.getBillingStatus());
+    }
+    if (patientDTO.getVersion() != null) {
+      patient.setVersion(patientDTO.getVersion());
+    }
+    return patient.build();
+  }
+
+  public static PatientPage toProto(PatientPageResponseDTO pageDTO) {
+    PatientPage.Builder page = PatientPage.newBuilder();
+    pageDTO.getPatients().forEach(patient -> page.addPatients(toProto(patient)));
+    if (pageDTO.getNextCursor() != null) {
+      page.setNextCursor(pageDTO.getNextCursor());
+    }
+    return page.build();
+  }
+
+  public static PatientRequestDTO toDTO(PatientRequest request) {
+    PatientRequestDTO patientRequestDTO = new PatientRequestDTO();
+    patientRequestDTO.setName(emptyToNull(request.getName()));
+    patientRequestDTO.setEmail(emptyToNull(request.getEmail()));
+    patientRequestDTO.setAddress(emptyToNull(request.getAddress()));
+    patientRequestDTO.setDateOfBirth(emptyToNull(request.getDateOfBirth()));
+    patientRequestDTO.setRegisteredDate(emptyToNull(request.getRegisteredDate()));
+    return patientRequestDTO;
+  }
+
+  public static PatientPatchRequestDTO toDTO(PatientPatchRequest request) {
+    PatientPatchRequestDTO patientPatchRequestDTO = new PatientPatchRequestDTO();
+    if (request.hasName()) {
+      patientPatchRequestDTO.setName(request.getName());
+    }
+    if (request.hasEmail()) {
+      patientPatchRequestDTO.setEmail(request.getEmail());
+    }
+    if (request.hasAddress()) {
+      patientPatchRequestDTO.setAddress(request.getAddress());
+    }
+    if (request.hasDateOfBirth()) {
+      patientPatchRequestDTO.setDateOfBirth(request.getDateOfBirth());
+    }
+    if (request.hasVersion()) {
+      patientPatchRequestDTO.setVersion(request.getVersion());
+    }
+    return patientPatchRequestDTO;
+  }
+
+  private static String emptyToNull(String value) {
+    return value.isEmpty() ? null : value;
+  }
+}
@@ -0,0 +1,7 @@
+package com.pm.patientservice.model;
+
+public enum BillingStatus {
+  PENDING,
+  PROVISIONED,
+  FAILED
+}
@@ -0,0 +1,7 @@
+package com.pm.patientservice.model;
+
+import java.time.LocalDate;
+
+// One row of a "count patients per date" aggregate
+public record DateCount(LocalDate date, Long count) {
+}
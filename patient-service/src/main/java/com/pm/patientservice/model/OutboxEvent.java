@@ -0,0 +1,93 @@
+package com.pm.patientservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "outbox_event", indexes = @Index(
+    name = "idx_outbox_event_pending", columnList = "publishedAt, createdAt"))
+public class OutboxEvent {
+  @Id
+  @TimeOrderedUuid
+  private UUID id;
+
+  @NotNull
+  private String topic;
+
+  @NotNull
+  private String aggregateId;
+
+  @NotNull
+  private String eventType;
+
+  @NotNull
+  @Column(length = 65535)
+  private byte[] payload;
+
+  @NotNull
+  private Instant createdAt;
+
+  private Instant publishedAt;
+
+  public UUID getId() {
+    return id;
+  }
+
+  public void setId(UUID id) {
+    this.id = id;
+  }
+
+  public @NotNull String getTopic() {
+    return topic;
+  }
+
+  public void setTopic(@NotNull String topic) {
+    this.topic = topic;
+  }
+
+  public @NotNull String getAggregateId() {
+    return aggregateId;
+  }
+
+  public void setAggregateId(@NotNull String aggregateId) {
+    this.aggregateId = aggregateId;
+  }
+
+  public @NotNull String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(@NotNull String eventType) {
+    this.eventType = eventType;
+  }
+
+  public @NotNull byte[] getPayload() {
+    return payload;
+  }
+
+  public void setPayload(@NotNull byte[] payload) {
+    this.payload = payload;
+  }
+
+  public @NotNull Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(@NotNull Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getPublishedAt() {
+    return publishedAt;
+  }
+
+  public void setPublishedAt(Instant publishedAt) {
+    this.publishedAt = publishedAt;
+  }
+}
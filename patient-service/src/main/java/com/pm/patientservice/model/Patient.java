@@ -1,19 +1,43 @@
 package com.pm.patientservice.model;
 
-import jakarta.persistence.Column;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
-
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+// Cached by id in the second-level cache (region "patient"). Updates only
+// write the columns that changed: billing status is set by bulk updates
+// without a version bump, so an entity loaded before one must not write
+// its old billing status back.
 @Entity
+@Table(indexes = @Index(name = "idx_patient_billing_status",
+    columnList = "billingStatus, billingUpdatedAt"),
+    uniqueConstraints = @UniqueConstraint(name = Patient.EMAIL_CONSTRAINT,
+        columnNames = "email"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Patient.CACHE_REGION)
+@DynamicUpdate
 public class Patient {
+
+  public static final String CACHE_REGION = "patient";
+  public static final String EMAIL_CONSTRAINT = "uk_patient_email";
+
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @TimeOrderedUuid
   private UUID id;
 
   @NotNull
@@ -21,7 +45,6 @@ public class Patient {
 
   @NotNull
   @Email
-  @Column(unique = true)
   private String email;
 
   @NotNull
@@ -33,6 +56,19 @@ public class Patient {
   @NotNull
   private LocalDate registeredDate;
 
+  // Rows created before billing provisioning was tracked have no status and
+  // are treated as provisioned
+  @Enumerated(EnumType.STRING)
+  private BillingStatus billingStatus = BillingStatus.PENDING;
+
+  private Instant billingUpdatedAt;
+
+  // Incremented by every edit of the patient's details (PUT and PATCH), not
+  // by billing status changes, which are not edits a client could conflict with
+  // (BillingProvisioningService writes them by id, never through the entity)
+  @Version
+  private Long version;
+
   public UUID getId() {
     return id;
   }
@@ -81,4 +117,34 @@ public class Patient {
     this.registeredDate = registeredDate;
   }
 
+  public BillingStatus getBillingStatus() {
+    return billingStatus;
+  }
+
+  public void setBillingStatus(BillingStatus billingStatus) {
+    this.billingStatus = billingStatus;
+  }
+
+  public Instant getBillingUpdatedAt() {
+    return billingUpdatedAt;
+  }
+
+  public void setBillingUpdatedAt(Instant billingUpdatedAt) {
+    this.billingUpdatedAt = billingUpdatedAt;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
+  @PrePersist
+  void onCreate() {
+    if (billingUpdatedAt == null) {
+      billingUpdatedAt = Instant.now();
+    }
+  }
 }
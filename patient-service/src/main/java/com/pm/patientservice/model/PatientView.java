@@ -0,0 +1,17 @@
+package com.pm.patientservice.model;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Read-only projection of the columns PatientResponseDTO needs. Spring Data
+// selects these straight into the record (a JPQL constructor expression), so
+// no entity is created, tracked or dirty-checked for reads.
+public record PatientView(
+    UUID id,
+    String name,
+    String email,
+    String address,
+    LocalDate dateOfBirth,
+    BillingStatus billingStatus,
+    Long version) {
+}
@@ -0,0 +1,15 @@
+package com.pm.patientservice.model;
+
+import com.pm.patientservice.util.UuidV7Generator;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.hibernate.annotations.IdGeneratorType;
+
+// Marks a UUID id that is assigned by UuidV7Generator before the insert
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedUuid {
+}
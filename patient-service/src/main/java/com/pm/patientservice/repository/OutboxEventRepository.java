@@ -0,0 +1,35 @@
+package com.pm.patientservice.repository;
+
+import com.pm.patientservice.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+  // FOR UPDATE NOWAIT (lock timeout 0): while one relay holds the oldest
+  // pending rows, a relay on another replica fails here instead of skipping
+  // ahead to newer events, which could overtake older ones for a patient
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+  List<OutboxEvent> findByPublishedAtIsNullOrderByCreatedAtAsc(Limit limit);
+
+  @Modifying
+  @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+  int markPublished(Collection<UUID> ids, Instant publishedAt);
+
+  @Modifying
+  @Query("delete from OutboxEvent e where e.publishedAt < :cutoff")
+  int deletePublishedBefore(Instant cutoff);
+}
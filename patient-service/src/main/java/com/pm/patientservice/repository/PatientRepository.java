@@ -1,12 +1,108 @@
 package com.pm.patientservice.repository;
 
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.DateCount;
 import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, UUID> {
-  boolean existsByEmail(String email);
-  boolean existsByEmailAndIdNot(String email, UUID id);
+
+  // Query space of the native updates below. As a JPQL bulk update touches
+  // the patient table, Hibernate would clear the whole patient region on
+  // each one; naming a space of their own leaves it alone, and callers evict
+  // only the patients they changed.
+  String ROW_UPDATE_SPACE = "patient_row_update";
+
+  // Not query-cached: results are keyed on the whole IN-list and dropped on
+  // every insert into patient, so a repeat would almost never hit
+  @Query("select p.email from Patient p where p.email in :emails")
+  Set<String> findExistingEmails(Collection<String> emails);
+
+  // Keyset pagination on the primary key index: each page is an index range
+  // scan starting after the previous page's last id, never an OFFSET scan
+  List<PatientView> findAllByOrderByIdAsc(Limit limit);
+  List<PatientView> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+  Optional<PatientView> findViewById(UUID id);
+
+  // A query, unlike findById, always reads the row: used to read back a
+  // patient changed by a native update in the same transaction. It does not
+  // put the uncommitted row into the second-level cache.
+  @Query("select p from Patient p where p.id = :id")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+  Optional<Patient> findCurrentById(UUID id);
+  List<PatientView> findViewsByIdIn(Collection<UUID> ids);
+
+  // Server-side cursor: rows are fetched from the database in chunks of the
+  // fetch size while the stream is consumed. Must be used inside a transaction.
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  Stream<PatientView> streamAllBy();
+
+  // Aggregates that seed PatientStatistics: a few thousand rows at most, one
+  // per distinct date, however many patients there are
+  @Query("select new com.pm.patientservice.model.DateCount(p.registeredDate, count(p)) "
+      + "from Patient p group by p.registeredDate")
+  List<DateCount> countByRegisteredDate();
+
+  @Query("select new com.pm.patientservice.model.DateCount(p.dateOfBirth, count(p)) "
+      + "from Patient p group by p.dateOfBirth")
+  List<DateCount> countByDateOfBirth();
+
+  // SKIP LOCKED so reconcilers on different replicas never retry the same row
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  List<Patient> findByBillingStatusInAndBillingUpdatedAtBefore(
+      Collection<BillingStatus> statuses, Instant updatedBefore, Limit limit);
+
+  // Partial edit in one statement: null parameters keep the current value, and
+  // the version guard makes a concurrent edit fail (0 rows) instead of being
+  // overwritten
+  @Modifying
+  @Query(value = "update patient set "
+      + "name = coalesce(cast(:name as varchar(255)), name), "
+      + "email = coalesce(cast(:email as varchar(255)), email), "
+      + "address = coalesce(cast(:address as varchar(255)), address), "
+      + "date_of_birth = coalesce(cast(:dateOfBirth as date), date_of_birth), "
+      + "version = version + 1 "
+      + "where id = :id and version = :version", nativeQuery = true)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ROW_UPDATE_SPACE))
+  int patch(UUID id, long version, String name, String email, String address,
+      LocalDate dateOfBirth);
+
+  // Leases the rows to the reconciler that found them: they are not due
+  // again until retry-after has passed, whatever the outcome of its call.
+  // Cached copies are left as they are; the outcome evicts them.
+  @Modifying
+  @Query(value = "update patient set billing_updated_at = :claimedAt "
+      + "where id in (:ids)", nativeQuery = true)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ROW_UPDATE_SPACE))
+  int claimBillingRetry(Collection<UUID> ids, Instant claimedAt);
+
+  @Transactional
+  @Modifying
+  @Query(value = "update patient set billing_status = :#{#status.name()}, "
+      + "billing_updated_at = :updatedAt where id in (:ids)", nativeQuery = true)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ROW_UPDATE_SPACE))
+  int updateBillingStatus(Collection<UUID> ids, BillingStatus status,
+      Instant updatedAt);
 }
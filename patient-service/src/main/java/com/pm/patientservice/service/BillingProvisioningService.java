@@ -0,0 +1,203 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.kafka.PatientEventOutbox;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class BillingProvisioningService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      BillingProvisioningService.class);
+
+  private final BillingServiceGrpcClient billingServiceGrpcClient;
+  private final PatientRepository patientRepository;
+  private final Executor callbackExecutor;
+  private final PatientResponseCache patientResponseCache;
+  private final Cache secondLevelCache;
+  private final boolean async;
+  private final Duration retryAfter;
+  private final int reconcileBatchSize;
+  private final MeterRegistry meterRegistry;
+  private final PatientEventOutbox patientEventOutbox;
+  private final TransactionTemplate transactionTemplate;
+
+  public BillingProvisioningService(
+      BillingServiceGrpcClient billingServiceGrpcClient,
+      PatientRepository patientRepository,
+      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+      Executor callbackExecutor,
+      PatientResponseCache patientResponseCache,
+      EntityManagerFactory entityManagerFactory,
+      PatientEventOutbox patientEventOutbox,
+      TransactionTemplate transactionTemplate,
+      @Value("${billing.provisioning.mode:sync}") String mode,
+      @Value("${billing.provisioning.retry-after:PT1M}") Duration retryAfter,
+      @Value("${billing.provisioning.reconcile-batch-size:200}") int reconcileBatchSize,
+      MeterRegistry meterRegistry) {
+    this.billingServiceGrpcClient = billingServiceGrpcClient;
+    this.patientRepository = patientRepository;
+    this.callbackExecutor = callbackExecutor;
+    this.patientResponseCache = patientResponseCache;
+    this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class)
+        .getCache();
+    this.patientEventOutbox = patientEventOutbox;
+    this.transactionTemplate = transactionTemplate;
+    this.async = "async".equalsIgnoreCase(mode);
+    this.retryAfter = retryAfter;
+    this.reconcileBatchSize = reconcileBatchSize;
+    this.meterRegistry = meterRegistry;
+  }
+
+  // In async mode this returns immediately; the outcome is recorded on the
+  // patient when billing-service answers or the deadline expires. Patients
+  // must already be committed: the call is never made inside a transaction.
+  public void provision(Patient patient) {
+    if (!async) {
+      try {
+        billingServiceGrpcClient.createBillingAccount(
+            patient.getId().toString(), patient.getName(), patient.getEmail());
+      } catch (StatusRuntimeException e) {
+        countFailure(List.of(patient), e);
+        markStatus(List.of(patient), BillingStatus.FAILED);
+        patient.setBillingStatus(BillingStatus.FAILED);
+        throw e;
+      }
+      markStatus(List.of(patient), BillingStatus.PROVISIONED);
+      // Detached; only the object the caller builds its response from
+      patient.setBillingStatus(BillingStatus.PROVISIONED);
+      return;
+    }
+
+    billingServiceGrpcClient.createBillingAccountAsync(
+            patient.getId().toString(), patient.getName(), patient.getEmail())
+        .whenCompleteAsync((response, error) ->
+            recordOutcome(List.of(patient), error), callbackExecutor);
+  }
+
+  public void provisionAll(List<Patient> patients) {
+    if (!async) {
+      try {
+        billingServiceGrpcClient.createBillingAccounts(patients);
+      } catch (StatusRuntimeException e) {
+        log.error("Error creating billing accounts for {} patients: {}",
+            patients.size(), e.getStatus());
+        countFailure(patients, e);
+        markStatus(patients, BillingStatus.FAILED);
+        patients.forEach(patient -> patient.setBillingStatus(BillingStatus.FAILED));
+        return;
+      }
+      markStatus(patients, BillingStatus.PROVISIONED);
+      patients.forEach(patient ->
+          patient.setBillingStatus(BillingStatus.PROVISIONED));
+      return;
+    }
+
+    billingServiceGrpcClient.createBillingAccountsAsync(patients)
+        .whenCompleteAsync((response, error) ->
+            recordOutcome(patients, error), callbackExecutor);
+  }
+
+  // Retries failed accounts, and pending ones whose callback never arrived
+  // (e.g. the instance stopped mid-call), in bulk. The rows are claimed in a
+  // short transaction of their own: SKIP LOCKED keeps other reconcilers off
+  // them while it runs, and moving billingUpdatedAt to now keeps them off for
+  // retry-after once it has committed. The billing call is then made with no
+  // transaction open, so no row lock is held for up to the batch deadline,
+  // and its outcome is recorded in another transaction.
+  @Scheduled(fixedDelayString = "${billing.provisioning.reconcile-interval-ms:30000}")
+  public void reconcile() {
+    List<Patient> patients = transactionTemplate.execute(status -> {
+      Instant now = Instant.now();
+      List<Patient> due = patientRepository
+          .findByBillingStatusInAndBillingUpdatedAtBefore(
+              List.of(BillingStatus.PENDING, BillingStatus.FAILED),
+              now.minus(retryAfter), Limit.of(reconcileBatchSize));
+      if (!due.isEmpty()) {
+        patientRepository.claimBillingRetry(
+            due.stream().map(Patient::getId).toList(), now);
+      }
+      return due;
+    });
+
+    if (patients.isEmpty()) {
+      return;
+    }
+
+    log.info("Reconciling billing accounts for {} patients", patients.size());
+    try {
+      billingServiceGrpcClient.createBillingAccounts(patients);
+      markStatus(patients, BillingStatus.PROVISIONED);
+    } catch (StatusRuntimeException e) {
+      log.warn("Billing reconciliation failed, will retry: {}", e.getStatus());
+      countFailure(patients, e);
+      markStatus(patients, BillingStatus.FAILED);
+    }
+  }
+
+  private void recordOutcome(List<Patient> patients, Throwable error) {
+    if (error != null) {
+      log.warn("Billing provisioning failed for {} patients, will retry: {}",
+          patients.size(), error.getMessage());
+      countFailure(patients, error);
+      markStatus(patients, BillingStatus.FAILED);
+    } else {
+      markStatus(patients, BillingStatus.PROVISIONED);
+    }
+  }
+
+  // Counted per patient, tagged with the gRPC status (DEADLINE_EXCEEDED,
+  // UNAVAILABLE, ...) that caused the failure
+  private void countFailure(List<Patient> patients, Throwable error) {
+    meterRegistry.counter("billing.provisioning.failures",
+            "cause", Status.fromThrowable(error).getCode().name())
+        .increment(patients.size());
+  }
+
+  // Written by id in its own statement; never through the entities, which
+  // would make managed ones dirty and get them written back (and their
+  // version bumped) at commit. The event makes other replicas evict their
+  // cached copies, as for any other change to the patient. Locally only these
+  // patients are evicted, once the transaction has ended: reading them back
+  // for the event may have cached the uncommitted rows.
+  // This is the cost of recording the outcome: every create (or batch) takes
+  // a second short write transaction, the status update plus one outbox row
+  // per patient, and one more Kafka record per patient on patient-billing.
+  private void markStatus(List<Patient> patients, BillingStatus status) {
+    List<UUID> ids = patients.stream().map(Patient::getId).toList();
+    try {
+      transactionTemplate.executeWithoutResult(transaction -> {
+        patientRepository.updateBillingStatus(ids, status, Instant.now());
+        patientEventOutbox.enqueueAll(patientRepository.findAllById(ids),
+            PatientEventOutbox.PATIENT_BILLING_UPDATED);
+      });
+    } finally {
+      ids.forEach(id -> {
+        secondLevelCache.evictEntityData(Patient.class, id);
+        patientResponseCache.evict(id);
+      });
+    }
+  }
+}
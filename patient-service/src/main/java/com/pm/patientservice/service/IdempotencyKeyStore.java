@@ -0,0 +1,107 @@
+package com.pm.patientservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.IdempotentRequestInProgressException;
+import com.pm.patientservice.exception.InvalidIdempotencyKeyException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Remembers the outcome of recent POST /patients calls by Idempotency-Key, so a
+// client retrying after a timeout gets the original response back instead of
+// running the create (insert, billing call, event) a second time. Bounded in
+// size and age; keys are local to this instance, and a retry that reaches
+// another replica still runs into the unique email constraint.
+@Component
+public class IdempotencyKeyStore {
+
+  private static final int MAX_KEY_LENGTH = 255;
+
+  private final Cache<String, Entry> entries;
+  private final Duration inProgressWait;
+
+  public IdempotencyKeyStore(
+      @Value("${patient.idempotency.max-keys:100000}") long maxKeys,
+      @Value("${patient.idempotency.ttl:PT24H}") Duration ttl,
+      @Value("${patient.idempotency.in-progress-wait:PT5S}") Duration inProgressWait) {
+    this.inProgressWait = inProgressWait;
+    this.entries = Caffeine.newBuilder()
+        .maximumSize(maxKeys)
+        .expireAfterWrite(ttl)
+        .build();
+  }
+
+  // A retry that arrives while the original is still running waits for it,
+  // for up to in-progress-wait; past that it is told to come back later rather
+  // than holding a request thread for as long as the original takes. Failed
+  // requests are forgotten so they can be retried with the same key.
+  public Result execute(String key, PatientRequestDTO request,
+      Supplier<PatientResponseDTO> action) {
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+    }
+
+    Entry entry = new Entry(fingerprint(request), new CompletableFuture<>());
+    Entry existing = entries.asMap().putIfAbsent(key, entry);
+    if (existing != null) {
+      return replay(existing, entry.fingerprint());
+    }
+
+    try {
+      PatientResponseDTO response = action.get();
+      entry.response().complete(response);
+      return new Result(response, false);
+    } catch (RuntimeException e) {
+      entries.asMap().remove(key, entry);
+      entry.response().completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private Result replay(Entry existing, String fingerprint) {
+    if (!existing.fingerprint().equals(fingerprint)) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key was already used for a different request");
+    }
+
+    try {
+      // Timing out a copy leaves the original's own future untouched
+      return new Result(existing.response().copy()
+          .orTimeout(inProgressWait.toMillis(), TimeUnit.MILLISECONDS)
+          .join(), true);
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof TimeoutException) {
+        throw new IdempotentRequestInProgressException(
+            "A request with this Idempotency-Key is still in progress",
+            inProgressWait);
+      }
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static String fingerprint(PatientRequestDTO request) {
+    return String.join("\u0000", String.valueOf(request.getName()),
+        String.valueOf(request.getEmail()), String.valueOf(request.getAddress()),
+        String.valueOf(request.getDateOfBirth()),
+        String.valueOf(request.getRegisteredDate()));
+  }
+
+  public record Result(PatientResponseDTO response, boolean replayed) {
+  }
+
+  private record Entry(String fingerprint,
+      CompletableFuture<PatientResponseDTO> response) {
+  }
+}
@@ -0,0 +1,188 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientBatchItemResultDTO;
+import com.pm.patientservice.dto.PatientBatchResponseDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.exception.BatchSizeExceededException;
+import com.pm.patientservice.kafka.PatientEventOutbox;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.util.ConstraintViolationUtil;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class PatientBatchService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientBatchService.class);
+
+  private final PatientRepository patientRepository;
+  private final BillingProvisioningService billingProvisioningService;
+  private final PatientEventOutbox patientEventOutbox;
+  private final PatientStatistics patientStatistics;
+  private final TransactionTemplate transactionTemplate;
+  private final Validator validator;
+  private final int maxBatchSize;
+
+  public PatientBatchService(PatientRepository patientRepository,
+      BillingProvisioningService billingProvisioningService,
+      PatientEventOutbox patientEventOutbox,
+      PatientStatistics patientStatistics,
+      TransactionTemplate transactionTemplate, Validator validator,
+      @Value("${patient.batch.max-size:1000}") int maxBatchSize) {
+    this.patientRepository = patientRepository;
+    this.billingProvisioningService = billingProvisioningService;
+    this.patientEventOutbox = patientEventOutbox;
+    this.patientStatistics = patientStatistics;
+    this.transactionTemplate = transactionTemplate;
+    this.validator = validator;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public PatientBatchResponseDTO createPatients(
+      List<PatientRequestDTO> patientRequestDTOs) {
+    if (patientRequestDTOs.size() > maxBatchSize) {
+      throw new BatchSizeExceededException(
+          "A batch cannot contain more than " + maxBatchSize + " patients");
+    }
+
+    PatientBatchItemResultDTO[] results =
+        new PatientBatchItemResultDTO[patientRequestDTOs.size()];
+    Map<Integer, Patient> accepted = new LinkedHashMap<>();
+
+    for (int i = 0; i < patientRequestDTOs.size(); i++) {
+      PatientRequestDTO patientRequestDTO = patientRequestDTOs.get(i);
+      // A null in the JSON array; the validator would throw on it
+      if (patientRequestDTO == null) {
+        results[i] = PatientBatchItemResultDTO.failed(i,
+            Map.of("message", "Patient is required"));
+        continue;
+      }
+
+      Map<String, String> errors = validate(patientRequestDTO);
+      if (!errors.isEmpty()) {
+        results[i] = PatientBatchItemResultDTO.failed(i, errors);
+        continue;
+      }
+
+      try {
+        accepted.put(i, PatientMapper.toModel(patientRequestDTO));
+      } catch (DateTimeParseException e) {
+        results[i] = PatientBatchItemResultDTO.failed(i,
+            Map.of("message", "Dates must be formatted as yyyy-MM-dd"));
+      }
+    }
+
+    // One query checks every email in the batch against the table
+    Set<String> existingEmails = accepted.isEmpty()
+        ? Set.of()
+        : patientRepository.findExistingEmails(accepted.values().stream()
+            .map(Patient::getEmail).toList());
+
+    Set<String> batchEmails = new HashSet<>();
+    Iterator<Map.Entry<Integer, Patient>> iterator =
+        accepted.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Integer, Patient> entry = iterator.next();
+      String email = entry.getValue().getEmail();
+
+      if (existingEmails.contains(email) || !batchEmails.add(email)) {
+        results[entry.getKey()] = PatientBatchItemResultDTO.failed(
+            entry.getKey(), Map.of("message", "Email address already exists"));
+        iterator.remove();
+      }
+    }
+
+    if (!accepted.isEmpty()) {
+      // Inserts go out as JDBC batches (hibernate.jdbc.batch_size), together
+      // with the outbox rows for their events
+      try {
+        transactionTemplate.executeWithoutResult(status ->
+            insert(accepted.values()));
+      } catch (DataIntegrityViolationException e) {
+        if (!ConstraintViolationUtil.isEmailConflict(e)) {
+          throw e;
+        }
+        // Another request registered one of these emails after the check:
+        // the rows are inserted one at a time instead, so only the items
+        // whose email was taken fail
+        log.info("Email conflict in batch of {} patients, inserting one by one",
+            accepted.size());
+        insertOneByOne(patientRequestDTOs, accepted, results);
+      }
+
+      if (!accepted.isEmpty()) {
+        billingProvisioningService.provisionAll(
+            List.copyOf(accepted.values()));
+      }
+
+      accepted.forEach((index, patient) -> results[index] =
+          PatientBatchItemResultDTO.created(index, PatientMapper.toDTO(patient)));
+    }
+
+    log.info("Batch of {} patients processed, {} created",
+        patientRequestDTOs.size(), accepted.size());
+    return new PatientBatchResponseDTO(Arrays.asList(results));
+  }
+
+  private void insert(Collection<Patient> patients) {
+    List<Patient> saved = patientRepository.saveAll(patients);
+    patientEventOutbox.enqueueAll(saved, "PATIENT_CREATED");
+    patientStatistics.recordCreated(saved);
+  }
+
+  // Entities from the rolled-back transaction still carry the id and version
+  // they were given, so each item is mapped again from its request
+  private void insertOneByOne(List<PatientRequestDTO> patientRequestDTOs,
+      Map<Integer, Patient> accepted, PatientBatchItemResultDTO[] results) {
+    Iterator<Map.Entry<Integer, Patient>> iterator =
+        accepted.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Integer, Patient> entry = iterator.next();
+      Patient patient = PatientMapper.toModel(
+          patientRequestDTOs.get(entry.getKey()));
+      try {
+        transactionTemplate.executeWithoutResult(status ->
+            insert(List.of(patient)));
+        entry.setValue(patient);
+      } catch (DataIntegrityViolationException e) {
+        if (!ConstraintViolationUtil.isEmailConflict(e)) {
+          throw e;
+        }
+        results[entry.getKey()] = PatientBatchItemResultDTO.failed(
+            entry.getKey(), Map.of("message", "Email address already exists"));
+        iterator.remove();
+      }
+    }
+  }
+
+  private Map<String, String> validate(PatientRequestDTO patientRequestDTO) {
+    Set<ConstraintViolation<PatientRequestDTO>> violations = validator.validate(
+        patientRequestDTO, Default.class, CreatePatientValidationGroup.class);
+
+    Map<String, String> errors = new HashMap<>();
+    violations.forEach(violation -> errors.put(
+        violation.getPropertyPath().toString(), violation.getMessage()));
+    return errors;
+  }
+}
@@ -0,0 +1,523 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.config.ReplicaRoutingDataSource;
+import com.pm.patientservice.dto.DuplicateCandidateDTO;
+import com.pm.patientservice.exception.PatientNotFoundException;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.util.AfterCommit;
+import com.pm.patientservice.util.StringSimilarity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Finds patients that are probably the same person registered twice, e.g.
+// with a second email address. Every patient is put into a few blocks by key:
+// the Double Metaphone code of each word of the normalized name + date of
+// birth (a misspelt first name still shares the surname's block), all of the
+// name's codes + year of birth (mistyped birth dates), and the email's local
+// part (same person, other domain). Only patients sharing a block are
+// scored, so the cost per patient is bounded by the block size rather than
+// the table size; a block that outgrows max-block-size (a very common name)
+// is dropped as too unspecific to say anything.
+//
+// The index lives in memory: a full scan of the table at startup and every
+// scan-interval-ms rebuilds it, and committed changes made through this
+// instance are scored as they happen. Changes made on other instances are
+// scored when their patient event arrives, as for the search index.
+//
+// Reads never take the lock: the index keeps each patient's candidates
+// sorted in a concurrent map and every pair in a skip list by score. A change
+// only re-sorts the lists of the patients it links or unlinks, so a write
+// costs the size of its blocks, not the number of candidates.
+@Component
+public class PatientDuplicateDetector {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientDuplicateDetector.class);
+
+  private static final DoubleMetaphone DOUBLE_METAPHONE = new DoubleMetaphone();
+  private static final List<UUID> SATURATED = List.of();
+  private static final Comparator<Pair> HIGHEST_FIRST = Comparator
+      .comparingDouble(Pair::score).reversed()
+      .thenComparing(Pair::first)
+      .thenComparing(Pair::second);
+
+  private static final double NAME_WEIGHT = 0.6;
+  private static final double BIRTH_WEIGHT = 0.3;
+  private static final double EMAIL_WEIGHT = 0.1;
+  private static final int MIN_EMAIL_KEY_LENGTH = 4;
+
+  private final PatientRepository patientRepository;
+  private final RecentPatientWrites recentPatientWrites;
+  private final TransactionTemplate readOnlyTransaction;
+  private final double minScore;
+  private final int maxBlockSize;
+  private final int maxLimit;
+  private final Counter detected;
+  private final ExecutorService scanner = Executors.newSingleThreadExecutor(
+      Thread.ofPlatform().name("patient-duplicate-scan").daemon().factory());
+  private final AtomicBoolean scanQueued = new AtomicBoolean();
+
+  // Changes are made holding lock. While a scan builds its index off to the
+  // side, local changes go to the live index and are also replayed onto the
+  // new one (latest state per patient; empty means deleted).
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile Index index;
+  private Map<UUID, Optional<Fingerprint>> changedDuringScan;
+
+  public PatientDuplicateDetector(PatientRepository patientRepository,
+      RecentPatientWrites recentPatientWrites,
+      TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+      @Value("${patient.duplicates.min-score:0.85}") double minScore,
+      @Value("${patient.duplicates.max-block-size:500}") int maxBlockSize,
+      @Value("${patient.duplicates.max-limit:1000}") int maxLimit) {
+    this.patientRepository = patientRepository;
+    this.recentPatientWrites = recentPatientWrites;
+    this.readOnlyTransaction = new TransactionTemplate(
+        transactionTemplate.getTransactionManager());
+    this.readOnlyTransaction.setReadOnly(true);
+    this.minScore = minScore;
+    this.maxBlockSize = maxBlockSize;
+    this.maxLimit = maxLimit;
+    this.index = new Index(maxBlockSize);
+    this.detected = Counter.builder("patient.duplicates.detected")
+        .description("Duplicate candidate pairs found for created or updated patients")
+        .register(meterRegistry);
+  }
+
+  public void index(Collection<Patient> patients) {
+    List<Fingerprint> fingerprints = patients.stream()
+        .map(patient -> fingerprint(patient.getId(), patient.getName(),
+            patient.getEmail(), patient.getDateOfBirth()))
+        .toList();
+    AfterCommit.run(() -> {
+      lock.lock();
+      try {
+        for (Fingerprint fingerprint : fingerprints) {
+          detected.increment(apply(index, fingerprint));
+          if (changedDuringScan != null) {
+            changedDuringScan.put(fingerprint.id(), Optional.of(fingerprint));
+          }
+        }
+        index.sortTouched();
+      } finally {
+        lock.unlock();
+      }
+    });
+  }
+
+  public void remove(UUID id) {
+    AfterCommit.run(() -> {
+      lock.lock();
+      try {
+        index.remove(id);
+        if (changedDuringScan != null) {
+          changedDuringScan.put(id, Optional.empty());
+        }
+        index.sortTouched();
+      } finally {
+        lock.unlock();
+      }
+    });
+  }
+
+  // For changes this instance only hears about through the patient events:
+  // the patients are read again from the primary, as in PatientSearchIndex.
+  // Not counted as detected, the instance that made the change did that.
+  public void reindex(Collection<UUID> ids) {
+    List<PatientView> patients = readOnlyTransaction.execute(status ->
+        ReplicaRoutingDataSource.usePrimary(
+            () -> patientRepository.findViewsByIdIn(ids)));
+
+    Set<UUID> deleted = new HashSet<>(ids);
+    lock.lock();
+    try {
+      for (PatientView patient : patients) {
+        deleted.remove(patient.id());
+        Fingerprint fingerprint = fingerprint(patient.id(), patient.name(),
+            patient.email(), patient.dateOfBirth());
+        apply(index, fingerprint);
+        if (changedDuringScan != null) {
+          changedDuringScan.put(fingerprint.id(), Optional.of(fingerprint));
+        }
+      }
+      for (UUID id : deleted) {
+        index.remove(id);
+        if (changedDuringScan != null) {
+          changedDuringScan.put(id, Optional.empty());
+        }
+      }
+      index.sortTouched();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Only a patient without candidates costs a query, to tell an unknown id
+  // (400, as for GET /patients/{id}) from a patient with no duplicates
+  public List<DuplicateCandidateDTO> candidatesOf(UUID id) {
+    List<DuplicateCandidateDTO> candidates = index.sorted
+        .getOrDefault(id, List.of());
+    if (candidates.isEmpty() && !recentPatientWrites.readYourWrites(id,
+        () -> patientRepository.existsById(id))) {
+      throw new PatientNotFoundException("Patient not found with ID: " + id);
+    }
+    return candidates;
+  }
+
+  // Highest-scoring pairs first, each pair once
+  public List<DuplicateCandidateDTO> topCandidates(int limit) {
+    return index.pairs.stream()
+        .limit(Math.max(0, Math.min(limit, maxLimit)))
+        .map(pair -> toDTO(pair.first(), pair.second(), pair.score()))
+        .toList();
+  }
+
+  // Scans run on their own thread so a long one does not hold up the other
+  // scheduled tasks; a request while one is already waiting is dropped
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${patient.duplicates.scan-interval-ms:3600000}",
+      initialDelayString = "${patient.duplicates.scan-interval-ms:3600000}")
+  public void requestScan() {
+    if (!scanQueued.compareAndSet(false, true)) {
+      return;
+    }
+    scanner.execute(() -> {
+      scanQueued.set(false);
+      try {
+        scan();
+      } catch (RuntimeException e) {
+        log.error("Patient duplicate scan failed", e);
+      }
+    });
+  }
+
+  // One server-side cursor over the table builds the blocks, then each block
+  // is scored on its own, in parallel
+  public void scan() {
+    long start = System.nanoTime();
+    lock.lock();
+    try {
+      changedDuringScan = new LinkedHashMap<>();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      Index scanned = new Index(maxBlockSize);
+      readOnlyTransaction.executeWithoutResult(status -> {
+        try (Stream<PatientView> patients = patientRepository.streamAllBy()) {
+          patients.forEach(patient -> scanned.add(fingerprint(patient.id(),
+              patient.name(), patient.email(), patient.dateOfBirth())));
+        }
+      });
+
+      List<Pair> pairs = scanned.blocks.values().parallelStream()
+          .flatMap(block -> scoreBlock(scanned, block).stream())
+          .toList();
+      for (Pair pair : pairs) {
+        scanned.link(pair.first(), pair.second(), pair.score());
+      }
+      scanned.sortTouched();
+
+      lock.lock();
+      try {
+        changedDuringScan.forEach((id, fingerprint) -> {
+          if (fingerprint.isPresent()) {
+            apply(scanned, fingerprint.get());
+          } else {
+            scanned.remove(id);
+          }
+        });
+        scanned.sortTouched();
+        index = scanned;
+      } finally {
+        lock.unlock();
+      }
+      log.info("Patient duplicate scan: {} patients, {} with candidates, in {} ms",
+          scanned.fingerprints.size(), scanned.candidates.size(),
+          (System.nanoTime() - start) / 1_000_000);
+    } finally {
+      lock.lock();
+      try {
+        changedDuringScan = null;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    scanner.shutdownNow();
+  }
+
+  // Puts the patient into its blocks, replacing any previous version, and
+  // scores it against the other members; returns the number of candidates
+  private int apply(Index target, Fingerprint fingerprint) {
+    target.remove(fingerprint.id());
+    target.add(fingerprint);
+
+    Set<UUID> compared = new HashSet<>();
+    int found = 0;
+    for (String key : fingerprint.blockingKeys()) {
+      for (UUID otherId : target.blocks.getOrDefault(key, SATURATED)) {
+        if (otherId.equals(fingerprint.id()) || !compared.add(otherId)) {
+          continue;
+        }
+        double score = score(fingerprint, target.fingerprints.get(otherId));
+        if (score >= minScore) {
+          target.link(fingerprint.id(), otherId, score);
+          found++;
+        }
+      }
+    }
+    return found;
+  }
+
+  private List<Pair> scoreBlock(Index scanned, List<UUID> block) {
+    List<Pair> pairs = new ArrayList<>();
+    for (int i = 0; i < block.size(); i++) {
+      Fingerprint first = scanned.fingerprints.get(block.get(i));
+      for (int j = i + 1; j < block.size(); j++) {
+        Fingerprint second = scanned.fingerprints.get(block.get(j));
+        double score = score(first, second);
+        if (score >= minScore) {
+          pairs.add(new Pair(first.id(), second.id(), score));
+        }
+      }
+    }
+    return pairs;
+  }
+
+  // Name counts most, then date of birth, then the email's local part
+  static double score(Fingerprint a, Fingerprint b) {
+    double name = nameSimilarity(a.name(), b.name());
+    double birth = a.dateOfBirth().equals(b.dateOfBirth()) ? 1
+        : likelyMistyped(a.dateOfBirth(), b.dateOfBirth()) ? 0.75 : 0;
+    double email = a.emailLocalPart().isEmpty() || b.emailLocalPart().isEmpty()
+        ? 0 : StringSimilarity.jaroWinkler(a.emailLocalPart(), b.emailLocalPart());
+    return NAME_WEIGHT * name + BIRTH_WEIGHT * birth + EMAIL_WEIGHT * email;
+  }
+
+  // How well the worst-matching word of the shorter name matches its closest
+  // word in the other, so a shared surname does not make "Jane Smith" and
+  // "John Smith" look alike, while a left-out middle name costs nothing
+  private static double nameSimilarity(String a, String b) {
+    String[] shorter = a.split(" ");
+    String[] longer = b.split(" ");
+    if (shorter.length > longer.length) {
+      String[] swap = shorter;
+      shorter = longer;
+      longer = swap;
+    }
+    double worst = 1;
+    for (String word : shorter) {
+      double best = 0;
+      for (String other : longer) {
+        best = Math.max(best, StringSimilarity.jaroWinkler(word, other));
+      }
+      worst = Math.min(worst, best);
+    }
+    return worst;
+  }
+
+  // One of day, month or year differs, or day and month are swapped
+  private static boolean likelyMistyped(LocalDate a, LocalDate b) {
+    int same = (a.getYear() == b.getYear() ? 1 : 0)
+        + (a.getMonthValue() == b.getMonthValue() ? 1 : 0)
+        + (a.getDayOfMonth() == b.getDayOfMonth() ? 1 : 0);
+    return same == 2 || (a.getYear() == b.getYear()
+        && a.getMonthValue() == b.getDayOfMonth()
+        && a.getDayOfMonth() == b.getMonthValue());
+  }
+
+  // Accents, case, punctuation and word order are ignored: "Smith, José" and
+  // "jose smith" have the same name and the same phonetic code
+  static Fingerprint fingerprint(UUID id, String name, String email,
+      LocalDate dateOfBirth) {
+    String ascii = Normalizer.normalize(name, Normalizer.Form.NFD)
+        .replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    List<String> words = Arrays.stream(ascii.split("\\P{L}+"))
+        .filter(word -> !word.isEmpty())
+        .sorted()
+        .toList();
+    // Double Metaphone only codes Latin letters; other scripts keep the word
+    String phonetic = words.stream()
+        .map(word -> {
+          String code = DOUBLE_METAPHONE.doubleMetaphone(word);
+          return code == null || code.isEmpty() ? word : code;
+        })
+        .sorted()
+        .collect(Collectors.joining(" "));
+
+    String localPart = email.substring(0, Math.max(0, email.indexOf('@')))
+        .toLowerCase(Locale.ROOT);
+    int tag = localPart.indexOf('+');
+    if (tag >= 0) {
+      localPart = localPart.substring(0, tag);
+    }
+    localPart = localPart.replaceAll("[._-]", "");
+
+    return new Fingerprint(id, String.join(" ", words), phonetic, dateOfBirth,
+        localPart);
+  }
+
+  private static DuplicateCandidateDTO toDTO(UUID id, UUID candidateId,
+      double score) {
+    return new DuplicateCandidateDTO(id.toString(), candidateId.toString(),
+        Math.round(score * 1000) / 1000.0);
+  }
+
+  record Fingerprint(UUID id, String name, String phonetic,
+      LocalDate dateOfBirth, String emailLocalPart) {
+
+    List<String> blockingKeys() {
+      List<String> keys = new ArrayList<>(4);
+      for (String code : new LinkedHashSet<>(Arrays.asList(phonetic.split(" ")))) {
+        keys.add("w|" + code + "|" + dateOfBirth);
+      }
+      keys.add("p|" + phonetic + "|" + dateOfBirth.getYear());
+      if (emailLocalPart.length() >= MIN_EMAIL_KEY_LENGTH) {
+        keys.add("e|" + emailLocalPart);
+      }
+      return keys;
+    }
+  }
+
+  // Each pair once, the smaller id first
+  private record Pair(UUID first, UUID second, double score) {
+
+    static Pair of(UUID a, UUID b, double score) {
+      return a.compareTo(b) < 0 ? new Pair(a, b, score) : new Pair(b, a, score);
+    }
+  }
+
+  // Patients, the blocks they are in and the candidates found for each (both
+  // directions). Changes are not thread-safe; a scan's index is only read
+  // concurrently while its blocks are scored. sorted and pairs are what
+  // requests read, without the lock: sorted is brought up to date for the
+  // patients whose candidates changed by sortTouched().
+  private static final class Index {
+
+    private final int maxBlockSize;
+    private final Map<UUID, Fingerprint> fingerprints = new HashMap<>();
+    private final Map<String, List<UUID>> blocks = new HashMap<>();
+    private final Map<UUID, Map<UUID, Double>> candidates = new HashMap<>();
+    private final Set<UUID> touched = new HashSet<>();
+    private final Map<UUID, List<DuplicateCandidateDTO>> sorted =
+        new ConcurrentHashMap<>();
+    private final NavigableSet<Pair> pairs =
+        new ConcurrentSkipListSet<>(HIGHEST_FIRST);
+
+    private Index(int maxBlockSize) {
+      this.maxBlockSize = maxBlockSize;
+    }
+
+    private void add(Fingerprint fingerprint) {
+      fingerprints.put(fingerprint.id(), fingerprint);
+      for (String key : fingerprint.blockingKeys()) {
+        List<UUID> block = blocks.computeIfAbsent(key, k -> new ArrayList<>(2));
+        if (block == SATURATED) {
+          continue;
+        }
+        if (block.size() >= maxBlockSize) {
+          blocks.put(key, SATURATED);
+        } else {
+          block.add(fingerprint.id());
+        }
+      }
+    }
+
+    private void remove(UUID id) {
+      Fingerprint fingerprint = fingerprints.remove(id);
+      if (fingerprint == null) {
+        return;
+      }
+      for (String key : fingerprint.blockingKeys()) {
+        List<UUID> block = blocks.get(key);
+        if (block != null && block != SATURATED) {
+          block.remove(id);
+          if (block.isEmpty()) {
+            blocks.remove(key);
+          }
+        }
+      }
+      Map<UUID, Double> linked = candidates.remove(id);
+      if (linked != null) {
+        touched.add(id);
+        linked.forEach((otherId, score) -> {
+          pairs.remove(Pair.of(id, otherId, score));
+          touched.add(otherId);
+          Map<UUID, Double> reverse = candidates.get(otherId);
+          reverse.remove(id);
+          if (reverse.isEmpty()) {
+            candidates.remove(otherId);
+          }
+        });
+      }
+    }
+
+    private void link(UUID first, UUID second, double score) {
+      Double previous = candidates.computeIfAbsent(first, k -> new HashMap<>(2))
+          .put(second, score);
+      candidates.computeIfAbsent(second, k -> new HashMap<>(2)).put(first, score);
+      if (previous != null) {
+        pairs.remove(Pair.of(first, second, previous));
+      }
+      pairs.add(Pair.of(first, second, score));
+      touched.add(first);
+      touched.add(second);
+    }
+
+    private void sortTouched() {
+      for (UUID id : touched) {
+        Map<UUID, Double> linked = candidates.get(id);
+        if (linked == null) {
+          sorted.remove(id);
+        } else {
+          sorted.put(id, linked.entrySet().stream()
+              .sorted(Map.Entry.<UUID, Double>comparingByValue().reversed())
+              .map(candidate -> toDTO(id, candidate.getKey(), candidate.getValue()))
+              .toList());
+        }
+      }
+      touched.clear();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.pm.patientservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.model.PatientView;
+import com.pm.patientservice.repository.PatientRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class PatientExportService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientExportService.class);
+  private static final byte NEWLINE = '\n';
+
+  private final PatientRepository patientRepository;
+  private final ObjectWriter objectWriter;
+
+  public PatientExportService(PatientRepository patientRepository,
+      ObjectMapper objectMapper) {
+    this.patientRepository = patientRepository;
+    this.objectWriter = objectMapper.writer();
+  }
+
+  // Writes one JSON document per line as rows arrive from the database cursor.
+  // Rows are read as PatientView projections, which never enter the
+  // persistence context, so the heap stays the same size no matter how many
+  // rows the table holds.
+  @Transactional(readOnly = true)
+  public void exportPatients(OutputStream outputStream) throws IOException {
+    long exported = 0;
+
+    try (Stream<PatientView> patients = patientRepository.streamAllBy()) {
+      Iterator<PatientView> iterator = patients.iterator();
+
+      while (iterator.hasNext()) {
+        PatientView patient = iterator.next();
+        outputStream.write(
+            objectWriter.writeValueAsBytes(PatientMapper.toDTO(patient)));
+        outputStream.write(NEWLINE);
+        exported++;
+      }
+    }
+
+    outputStream.flush();
+    log.info("Exported {} patients", exported);
+  }
+}
@@ -0,0 +1,419 @@
+package com.pm.patientservice.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.pm.patientservice.dto.PatientImportResponseDTO;
+import com.pm.patientservice.dto.PatientImportRowErrorDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.exception.InvalidImportFileException;
+import com.pm.patientservice.kafka.PatientEventOutbox;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.util.UuidV7Generator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Bulk import of a patient CSV (header: name,email,address,dateOfBirth,
+// registeredDate) for initial data loads. The file is streamed in chunks:
+// validation-threads chunks are checked against the PatientRequestDTO rules
+// in parallel while the previous one is loaded, so memory stays bounded by
+// a few chunks however large the file is.
+//
+// Each chunk is loaded in one transaction: COPY into a temporary staging
+// table, one INSERT ... SELECT of the rows whose email is not taken, and
+// the PATIENT_CREATED outbox events of the rows that made it in. Billing
+// accounts are then requested in batches once the chunk has committed.
+@Service
+public class PatientImportService {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientImportService.class);
+
+  private static final List<String> COLUMNS = List.of(
+      "name", "email", "address", "dateOfBirth", "registeredDate");
+
+  private static final ObjectReader CSV_READER = new CsvMapper()
+      .enable(CsvParser.Feature.WRAP_AS_ARRAY)
+      .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+      .enable(CsvParser.Feature.TRIM_SPACES)
+      .readerFor(String[].class);
+
+  // Rows are deleted when each chunk's transaction commits; the table itself
+  // lives as long as the pooled connection
+  private static final String CREATE_STAGING_TABLE =
+      "CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS patient_import ("
+          + "id UUID PRIMARY KEY, name VARCHAR(255), email VARCHAR(255), "
+          + "address VARCHAR(255), date_of_birth DATE, registered_date DATE) "
+          + "ON COMMIT DELETE ROWS";
+  private static final String COPY_STAGING =
+      "COPY patient_import (id, name, email, address, date_of_birth, "
+          + "registered_date) FROM STDIN (FORMAT csv)";
+  private static final String INSERT_STAGING =
+      "INSERT INTO patient_import (id, name, email, address, date_of_birth, "
+          + "registered_date) VALUES (?, ?, ?, ?, ?, ?)";
+  private static final String MERGE =
+      "INSERT INTO patient (id, name, email, address, date_of_birth, "
+          + "registered_date, billing_status, billing_updated_at, version) "
+          + "SELECT i.id, i.name, i.email, i.address, i.date_of_birth, "
+          + "i.registered_date, ?, ?, 0 FROM patient_import i "
+          + "WHERE NOT EXISTS (SELECT 1 FROM patient p WHERE p.email = i.email)";
+  // Also covers emails registered by a concurrent request after the check
+  private static final String MERGE_ON_CONFLICT = " ON CONFLICT (email) DO NOTHING";
+  private static final String NOT_MERGED =
+      "SELECT i.id FROM patient_import i "
+          + "WHERE NOT EXISTS (SELECT 1 FROM patient p WHERE p.id = i.id)";
+
+  private static final Map<String, String> DUPLICATE_EMAIL =
+      Map.of("email", "Email address already exists");
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final Validator validator;
+  private final PatientEventOutbox patientEventOutbox;
+  private final PatientStatistics patientStatistics;
+  private final BillingProvisioningService billingProvisioningService;
+  private final int chunkSize;
+  private final int validationThreads;
+  private final int billingBatchSize;
+  private final int maxReportedErrors;
+
+  public PatientImportService(JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate, Validator validator,
+      PatientEventOutbox patientEventOutbox,
+      PatientStatistics patientStatistics,
+      BillingProvisioningService billingProvisioningService,
+      @Value("${patient.import.chunk-size:10000}") int chunkSize,
+      @Value("${patient.import.validation-threads:0}") int validationThreads,
+      @Value("${patient.batch.max-size:1000}") int billingBatchSize,
+      @Value("${patient.import.max-reported-errors:1000}") int maxReportedErrors) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.validator = validator;
+    this.patientEventOutbox = patientEventOutbox;
+    this.patientStatistics = patientStatistics;
+    this.billingProvisioningService = billingProvisioningService;
+    this.chunkSize = chunkSize;
+    this.validationThreads = validationThreads > 0 ? validationThreads
+        : Runtime.getRuntime().availableProcessors();
+    this.billingBatchSize = billingBatchSize;
+    this.maxReportedErrors = maxReportedErrors;
+  }
+
+  // Chunks commit as they go: if the file turns out to be malformed part way
+  // through, the rows before the bad one stay imported, and the report says
+  // where reading stopped (malformedAtRow) and why
+  public PatientImportResponseDTO importPatients(InputStream csv) {
+    long start = System.nanoTime();
+    Report report = new Report(maxReportedErrors);
+    ExecutorService validators = Executors.newFixedThreadPool(validationThreads);
+    Deque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+
+    try (MappingIterator<String[]> rows = CSV_READER.readValues(csv)) {
+      int[] columns = readHeader(rows);
+      long rowNumber = 0;
+      boolean malformed = false;
+      while (!malformed) {
+        List<String[]> lines = new ArrayList<>(chunkSize);
+        try {
+          while (lines.size() < chunkSize && rows.hasNextValue()) {
+            lines.add(rows.nextValue());
+          }
+        } catch (IOException | RuntimeException e) {
+          malformed = true;
+          report.malformed(rowNumber + lines.size() + 1,
+              "Malformed CSV, the rows before it were imported: "
+                  + e.getMessage());
+        }
+        if (lines.isEmpty()) {
+          break;
+        }
+
+        long firstRow = rowNumber + 1;
+        rowNumber += lines.size();
+        pending.add(CompletableFuture.supplyAsync(
+            () -> validate(lines, firstRow, columns), validators));
+        if (pending.size() > validationThreads) {
+          load(pending.removeFirst().join(), report);
+        }
+      }
+      drain(pending, report);
+    } catch (IOException e) {
+      throw new InvalidImportFileException("Unreadable CSV: " + e.getMessage());
+    } finally {
+      validators.shutdownNow();
+    }
+
+    PatientImportResponseDTO response = report.toResponse();
+    log.info("Imported {} of {} patients ({} invalid, {} duplicates) in {} ms",
+        response.getImported(), response.getRows(), response.getInvalid(),
+        response.getDuplicates(), (System.nanoTime() - start) / 1_000_000);
+    return response;
+  }
+
+  private int[] readHeader(MappingIterator<String[]> rows) throws IOException {
+    if (!rows.hasNextValue()) {
+      throw new InvalidImportFileException("The CSV file is empty");
+    }
+    List<String> header = List.of(rows.nextValue());
+
+    int[] columns = new int[COLUMNS.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = header.indexOf(COLUMNS.get(i));
+      if (columns[i] < 0) {
+        throw new InvalidImportFileException(
+            "The CSV header must contain the columns " + COLUMNS);
+      }
+    }
+    return columns;
+  }
+
+  private void drain(Deque<CompletableFuture<Chunk>> pending, Report report) {
+    while (!pending.isEmpty()) {
+      load(pending.removeFirst().join(), report);
+    }
+  }
+
+  // Runs on the validation threads; emails repeated within the chunk are
+  // reported here, repeats across chunks and existing emails by the merge
+  private Chunk validate(List<String[]> lines, long firstRow, int[] columns) {
+    List<Patient> patients = new ArrayList<>(lines.size());
+    Map<UUID, Long> rowsById = new HashMap<>(lines.size() * 2);
+    List<PatientImportRowErrorDTO> invalid = new ArrayList<>();
+    List<PatientImportRowErrorDTO> duplicates = new ArrayList<>();
+    Set<String> emails = new HashSet<>(lines.size() * 2);
+    Instant now = Instant.now();
+
+    for (int i = 0; i < lines.size(); i++) {
+      long row = firstRow + i;
+      PatientRequestDTO request = toRequest(lines.get(i), columns);
+
+      Map<String, String> errors = validate(request);
+      if (!errors.isEmpty()) {
+        invalid.add(new PatientImportRowErrorDTO(row, errors));
+        continue;
+      }
+
+      Patient patient;
+      try {
+        patient = PatientMapper.toModel(request);
+      } catch (DateTimeParseException e) {
+        invalid.add(new PatientImportRowErrorDTO(row,
+            Map.of("message", "Dates must be formatted as yyyy-MM-dd")));
+        continue;
+      }
+      if (!emails.add(patient.getEmail())) {
+        duplicates.add(new PatientImportRowErrorDTO(row, DUPLICATE_EMAIL));
+        continue;
+      }
+
+      patient.setId(UuidV7Generator.next());
+      patient.setBillingStatus(BillingStatus.PENDING);
+      patient.setBillingUpdatedAt(now);
+      patient.setVersion(0L);
+      patients.add(patient);
+      rowsById.put(patient.getId(), row);
+    }
+    return new Chunk(lines.size(), patients, rowsById, invalid, duplicates);
+  }
+
+  private static PatientRequestDTO toRequest(String[] line, int[] columns) {
+    PatientRequestDTO request = new PatientRequestDTO();
+    request.setName(column(line, columns[0]));
+    request.setEmail(column(line, columns[1]));
+    request.setAddress(column(line, columns[2]));
+    request.setDateOfBirth(column(line, columns[3]));
+    request.setRegisteredDate(column(line, columns[4]));
+    return request;
+  }
+
+  private static String column(String[] line, int index) {
+    return index < line.length ? line[index] : null;
+  }
+
+  private Map<String, String> validate(PatientRequestDTO patientRequestDTO) {
+    Set<ConstraintViolation<PatientRequestDTO>> violations = validator.validate(
+        patientRequestDTO, Default.class, CreatePatientValidationGroup.class);
+
+    Map<String, String> errors = new HashMap<>();
+    violations.forEach(violation -> errors.put(
+        violation.getPropertyPath().toString(), violation.getMessage()));
+    return errors;
+  }
+
+  private void load(Chunk chunk, Report report) {
+    List<Patient> imported = chunk.patients();
+    List<PatientImportRowErrorDTO> duplicates = new ArrayList<>(chunk.duplicates());
+
+    if (!chunk.patients().isEmpty()) {
+      imported = transactionTemplate.execute(status -> {
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+        boolean postgres = stage(chunk.patients());
+        jdbcTemplate.update(postgres ? MERGE + MERGE_ON_CONFLICT : MERGE,
+            BillingStatus.PENDING.name(),
+            Timestamp.from(chunk.patients().get(0).getBillingUpdatedAt()));
+
+        Set<UUID> notMerged = new HashSet<>(
+            jdbcTemplate.queryForList(NOT_MERGED, UUID.class));
+        List<Patient> merged = new ArrayList<>(chunk.patients().size());
+        for (Patient patient : chunk.patients()) {
+          if (notMerged.contains(patient.getId())) {
+            duplicates.add(new PatientImportRowErrorDTO(
+                chunk.rowsById().get(patient.getId()), DUPLICATE_EMAIL));
+          } else {
+            merged.add(patient);
+          }
+        }
+
+        if (!merged.isEmpty()) {
+          patientEventOutbox.enqueueAll(merged, "PATIENT_CREATED");
+          patientStatistics.recordCreated(merged);
+        }
+        return merged;
+      });
+
+      for (int i = 0; i < imported.size(); i += billingBatchSize) {
+        billingProvisioningService.provisionAll(
+            imported.subList(i, Math.min(imported.size(), i + billingBatchSize)));
+      }
+    }
+
+    report.add(chunk, imported.size(), duplicates);
+  }
+
+  // COPY on PostgreSQL; other databases (H2 in tests and local runs) get a
+  // JDBC batch insert into the same staging table
+  private boolean stage(List<Patient> patients) {
+    boolean copied = Boolean.TRUE.equals(jdbcTemplate.execute(
+        (ConnectionCallback<Boolean>) connection -> {
+          if (!connection.isWrapperFor(PGConnection.class)) {
+            return false;
+          }
+          try {
+            connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn(COPY_STAGING, new StringReader(toCsv(patients)));
+          } catch (IOException e) {
+            throw new IllegalStateException("COPY into patient_import failed", e);
+          }
+          return true;
+        }));
+
+    if (!copied) {
+      jdbcTemplate.batchUpdate(INSERT_STAGING, patients, patients.size(),
+          (statement, patient) -> {
+            statement.setObject(1, patient.getId());
+            statement.setString(2, patient.getName());
+            statement.setString(3, patient.getEmail());
+            statement.setString(4, patient.getAddress());
+            statement.setDate(5, Date.valueOf(patient.getDateOfBirth()));
+            statement.setDate(6, Date.valueOf(patient.getRegisteredDate()));
+          });
+    }
+    return copied;
+  }
+
+  private static String toCsv(List<Patient> patients) {
+    StringBuilder csv = new StringBuilder(patients.size() * 128);
+    for (Patient patient : patients) {
+      csv.append(patient.getId()).append(',');
+      appendQuoted(csv, patient.getName()).append(',');
+      appendQuoted(csv, patient.getEmail()).append(',');
+      appendQuoted(csv, patient.getAddress()).append(',');
+      csv.append(patient.getDateOfBirth()).append(',')
+          .append(patient.getRegisteredDate()).append('\n');
+    }
+    return csv.toString();
+  }
+
+  private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+    return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+  }
+
+  private record Chunk(int rows, List<Patient> patients,
+      Map<UUID, Long> rowsById, List<PatientImportRowErrorDTO> invalid,
+      List<PatientImportRowErrorDTO> duplicates) {
+  }
+
+  // Counts cover every row; the rows themselves are only listed up to
+  // max-reported-errors, so a bad file cannot make the response unbounded
+  private static class Report {
+
+    private final int maxErrors;
+    private final List<PatientImportRowErrorDTO> errors = new ArrayList<>();
+    private long rows;
+    private long imported;
+    private long invalid;
+    private long duplicates;
+    private boolean truncated;
+    private Long malformedAtRow;
+    private String error;
+
+    Report(int maxErrors) {
+      this.maxErrors = maxErrors;
+    }
+
+    void add(Chunk chunk, int importedRows,
+        List<PatientImportRowErrorDTO> duplicateRows) {
+      rows += chunk.rows();
+      imported += importedRows;
+      invalid += chunk.invalid().size();
+      duplicates += duplicateRows.size();
+
+      List<PatientImportRowErrorDTO> chunkErrors = new ArrayList<>(chunk.invalid());
+      chunkErrors.addAll(duplicateRows);
+      chunkErrors.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+      for (PatientImportRowErrorDTO error : chunkErrors) {
+        if (errors.size() < maxErrors) {
+          errors.add(error);
+        } else {
+          truncated = true;
+        }
+      }
+    }
+
+    void malformed(long row, String message) {
+      malformedAtRow = row;
+      error = message;
+    }
+
+    PatientImportResponseDTO toResponse() {
+      PatientImportResponseDTO response = new PatientImportResponseDTO(rows,
+          imported, invalid, duplicates, errors, truncated);
+      response.setMalformedAtRow(malformedAtRow);
+      response.setError(error);
+      return response;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+// The GET /patients/{id} response cache. A read that loaded a patient before
+// a change committed must not cache it after that change's eviction, or the
+// old response would be served until it expires. Evictions first move a
+// generation counter (one per stripe of ids); a fill re-checks it after the
+// put and drops its entry if it moved. There is no lock and no DB work under
+// one: either the fill sees the eviction or the eviction removes the fill.
+@Component
+public class PatientResponseCache {
+
+  private static final int STRIPES = 1024;
+
+  private final Cache cache;
+  private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+  public PatientResponseCache(CacheManager cacheManager) {
+    this.cache = cacheManager.getCache(PatientService.PATIENT_CACHE);
+  }
+
+  public PatientResponseDTO get(UUID id, Supplier<PatientResponseDTO> load) {
+    PatientResponseDTO cached = cache.get(id, PatientResponseDTO.class);
+    if (cached != null) {
+      return cached;
+    }
+
+    int stripe = stripe(id);
+    long generation = generations.get(stripe);
+    PatientResponseDTO loaded = load.get();
+    cache.put(id, loaded);
+    if (generations.get(stripe) != generation) {
+      cache.evict(id);
+    }
+    return loaded;
+  }
+
+  // Call once the change is committed: a read that starts after this sees it
+  public void evict(UUID id) {
+    generations.incrementAndGet(stripe(id));
+    cache.evict(id);
+  }
+
+  private static int stripe(UUID id) {
+    return (id.hashCode() & Integer.MAX_VALUE) % STRIPES;
+  }
+}
@@ -0,0 +1,414 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.config.ReplicaRoutingDataSource;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.util.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// On-disk Lucene index over patient name, email and address for
+// GET /patients/search. Searches only return ranked ids; the patients
+// themselves are then read by primary key.
+//
+// Committed creates, updates and deletes made through this instance are
+// applied from PatientEventOutbox; changes made on other instances arrive
+// as patient events and are re-read from the database. Either way they
+// become searchable at the next refresh (refresh-interval-ms). The index is
+// rebuilt from the table at startup, so a crash between commits loses
+// nothing.
+@Component
+public class PatientSearchIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientSearchIndex.class);
+
+  private static final String ID = "id";
+  private static final String NAME = "name";
+  private static final String EMAIL = "email";
+  private static final String ADDRESS = "address";
+  private static final String GENERATION = "generation";
+  private static final String[] SEARCH_FIELDS = {NAME, EMAIL, ADDRESS};
+
+  // Bounds the cost of a query however long q is
+  private static final int MAX_QUERY_TERMS = 8;
+  private static final int REBUILD_BATCH_SIZE = 1_000;
+
+  private final PatientRepository patientRepository;
+  private final TransactionTemplate readOnlyTransaction;
+  private final int maxResults;
+  private final int rebuildThreads;
+  private final boolean rebuildOnStartup;
+  private final Path rebuildDir;
+
+  private final Analyzer analyzer = new StandardAnalyzer();
+  private final FSDirectory directory;
+  private final IndexWriter indexWriter;
+  private final SearcherManager searcherManager;
+
+  // While a rebuild runs, refreshes are held back so searches keep seeing
+  // the previous index until the new one is swapped in. Patients changed in
+  // the meantime are re-read once it is done, in case the rebuild's table
+  // scan saw an older row.
+  private volatile boolean rebuilding;
+  private final Set<UUID> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+  public PatientSearchIndex(PatientRepository patientRepository,
+      TransactionTemplate transactionTemplate,
+      @Value("${patient.search.index-dir:data/patient-search-index}") Path indexDir,
+      @Value("${patient.search.max-limit:100}") int maxResults,
+      @Value("${patient.search.rebuild-threads:0}") int rebuildThreads,
+      @Value("${patient.search.rebuild-on-startup:true}") boolean rebuildOnStartup)
+      throws IOException {
+    this.patientRepository = patientRepository;
+    this.readOnlyTransaction = new TransactionTemplate(
+        transactionTemplate.getTransactionManager());
+    this.readOnlyTransaction.setReadOnly(true);
+    this.maxResults = maxResults;
+    this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads
+        : Runtime.getRuntime().availableProcessors();
+    this.rebuildOnStartup = rebuildOnStartup;
+    this.rebuildDir = indexDir.resolveSibling(indexDir.getFileName() + "-rebuild");
+
+    this.directory = FSDirectory.open(indexDir);
+    IndexWriterConfig config = new IndexWriterConfig(analyzer)
+        .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+        .setRAMBufferSizeMB(64);
+    this.indexWriter = new IndexWriter(directory, config);
+    this.searcherManager = new SearcherManager(indexWriter, null);
+  }
+
+  // Ranked ids of the patients matching every word of the query: exact
+  // words rank above prefixes, and prefixes above fuzzy matches (one edit,
+  // two for words of eight letters or more)
+  public List<UUID> search(String query, int limit) {
+    List<String> words = analyze(query);
+    if (words.isEmpty()) {
+      return List.of();
+    }
+
+    try {
+      IndexSearcher searcher = searcherManager.acquire();
+      try {
+        ScoreDoc[] hits = searcher.search(toQuery(words),
+            Math.clamp(limit, 1, maxResults)).scoreDocs;
+        List<UUID> ids = new ArrayList<>(hits.length);
+        for (ScoreDoc hit : hits) {
+          ids.add(UUID.fromString(
+              searcher.storedFields().document(hit.doc).get(ID)));
+        }
+        return ids;
+      } finally {
+        searcherManager.release(searcher);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // The document is taken from the patient now and written once the
+  // transaction commits, as in PatientStatistics
+  public void index(Collection<Patient> patients) {
+    List<Document> documents = patients.stream()
+        .map(patient -> toDocument(patient.getId(), patient.getName(),
+            patient.getEmail(), patient.getAddress()))
+        .toList();
+    AfterCommit.run(() -> {
+      for (Document document : documents) {
+        updateDocument(document);
+      }
+    });
+  }
+
+  public void delete(UUID id) {
+    AfterCommit.run(() -> {
+      markChanged(id);
+      try {
+        indexWriter.deleteDocuments(new Term(ID, id.toString()));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  // For changes this instance only hears about: the event does not carry
+  // every indexed field, so the patients are read again, from the primary
+  // since they have only just changed
+  public void reindex(Collection<UUID> ids) {
+    List<PatientView> patients = readOnlyTransaction.execute(status ->
+        ReplicaRoutingDataSource.usePrimary(
+            () -> patientRepository.findViewsByIdIn(ids)));
+
+    Set<UUID> deleted = new HashSet<>(ids);
+    try {
+      for (PatientView patient : patients) {
+        deleted.remove(patient.id());
+        updateDocument(toDocument(patient));
+      }
+      for (UUID id : deleted) {
+        markChanged(id);
+        indexWriter.deleteDocuments(new Term(ID, id.toString()));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startRebuild() {
+    if (!rebuildOnStartup && indexWriter.getDocStats().numDocs > 0) {
+      return;
+    }
+    // Searches are served from the index on disk until the rebuild is done
+    Thread.ofPlatform().name("patient-search-rebuild").daemon()
+        .start(() -> {
+          try {
+            rebuild();
+          } catch (AlreadyClosedException e) {
+            log.info("Patient search index closed during rebuild");
+          } catch (RuntimeException e) {
+            log.error("Patient search index rebuild failed", e);
+          }
+        });
+  }
+
+  // The table is indexed into a directory of its own, next to the index,
+  // and only swapped in once complete: if the scan fails, the index (kept up
+  // to date meanwhile) is left as it was.
+  public synchronized void rebuild() {
+    long start = System.nanoTime();
+    String generation = UUID.randomUUID().toString();
+    rebuilding = true;
+    try {
+      long count;
+      try (FSDirectory rebuilt = FSDirectory.open(rebuildDir)) {
+        count = indexTable(rebuilt, generation);
+        // Every patient is in the index twice between these two calls,
+        // which no search sees since refreshes are held back
+        indexWriter.addIndexes(rebuilt);
+        indexWriter.deleteDocuments(new BooleanQuery.Builder()
+            .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+            .add(new TermQuery(new Term(GENERATION, generation)),
+                BooleanClause.Occur.MUST_NOT)
+            .build());
+        indexWriter.commit();
+      } finally {
+        IOUtils.rm(rebuildDir);
+      }
+
+      rebuilding = false;
+      List<UUID> changed = new ArrayList<>(changedDuringRebuild);
+      changedDuringRebuild.removeAll(changed);
+      if (!changed.isEmpty()) {
+        reindex(changed);
+      }
+      searcherManager.maybeRefreshBlocking();
+
+      log.info("Patient search index rebuilt: {} patients in {} ms", count,
+          (System.nanoTime() - start) / 1_000_000);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      rebuilding = false;
+      changedDuringRebuild.clear();
+    }
+  }
+
+  // One server-side cursor over the table feeds batches to a pool of
+  // indexing threads; IndexWriter indexes them concurrently, each thread
+  // into its own in-memory segment
+  private long indexTable(FSDirectory target, String generation)
+      throws IOException {
+    IndexWriter writer = new IndexWriter(target, new IndexWriterConfig(analyzer)
+        .setOpenMode(IndexWriterConfig.OpenMode.CREATE)
+        .setRAMBufferSizeMB(64));
+    ExecutorService indexers = Executors.newFixedThreadPool(rebuildThreads);
+    try {
+      // At most two batches per thread are held in memory at a time
+      Semaphore pendingBatches = new Semaphore(rebuildThreads * 2);
+      List<CompletableFuture<Void>> batches = new ArrayList<>();
+      long count = readOnlyTransaction.execute(status -> {
+        long scanned = 0;
+        try (Stream<PatientView> patients = patientRepository.streamAllBy()) {
+          Iterator<PatientView> iterator = patients.iterator();
+          while (iterator.hasNext()) {
+            List<Document> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+            while (iterator.hasNext() && batch.size() < REBUILD_BATCH_SIZE) {
+              Document document = toDocument(iterator.next());
+              document.add(new StringField(GENERATION, generation,
+                  Field.Store.NO));
+              batch.add(document);
+            }
+            scanned += batch.size();
+            pendingBatches.acquireUninterruptibly();
+            batches.add(CompletableFuture.runAsync(() -> {
+              try {
+                writer.addDocuments(batch);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              } finally {
+                pendingBatches.release();
+              }
+            }, indexers));
+          }
+        }
+        return scanned;
+      });
+      CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+      writer.close();
+      return count;
+    } finally {
+      indexers.shutdown();
+      if (writer.isOpen()) {
+        writer.rollback();
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${patient.search.refresh-interval-ms:1000}")
+  public void refresh() throws IOException {
+    if (!rebuilding) {
+      searcherManager.maybeRefresh();
+    }
+  }
+
+  // Commits only make a restart without rebuild-on-startup cheaper
+  @Scheduled(fixedDelayString = "${patient.search.commit-interval-ms:60000}")
+  public void commit() throws IOException {
+    if (!rebuilding && indexWriter.hasUncommittedChanges()) {
+      indexWriter.commit();
+    }
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    searcherManager.close();
+    indexWriter.close();
+    directory.close();
+  }
+
+  private void updateDocument(Document document) {
+    String id = document.get(ID);
+    markChanged(UUID.fromString(id));
+    try {
+      indexWriter.updateDocument(new Term(ID, id), document);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void markChanged(UUID id) {
+    if (rebuilding) {
+      changedDuringRebuild.add(id);
+    }
+  }
+
+  private List<String> analyze(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    try (TokenStream tokens = analyzer.tokenStream(NAME, text)) {
+      CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+      tokens.reset();
+      while (tokens.incrementToken() && words.size() < MAX_QUERY_TERMS) {
+        words.add(term.toString());
+      }
+      tokens.end();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return words;
+  }
+
+  // Fuzzy terms must share the first letter, which keeps their expansion
+  // to a small slice of the term dictionary
+  private static Query toQuery(List<String> words) {
+    BooleanQuery.Builder query = new BooleanQuery.Builder();
+    for (String word : words) {
+      BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+      for (String field : SEARCH_FIELDS) {
+        Term term = new Term(field, word);
+        anyField.add(new BoostQuery(new TermQuery(term), 3f),
+            BooleanClause.Occur.SHOULD);
+        anyField.add(new BoostQuery(new PrefixQuery(term), 2f),
+            BooleanClause.Occur.SHOULD);
+        if (word.length() >= 4) {
+          anyField.add(new FuzzyQuery(term, word.length() >= 8 ? 2 : 1, 1),
+              BooleanClause.Occur.SHOULD);
+        }
+      }
+      query.add(anyField.build(), BooleanClause.Occur.MUST);
+    }
+    return query.build();
+  }
+
+  private static Document toDocument(PatientView patient) {
+    return toDocument(patient.id(), patient.name(), patient.email(),
+        patient.address());
+  }
+
+  // The standard tokenizer keeps "jane.doe@example.com" as "jane.doe" and
+  // "example.com"; the email is indexed split on punctuation as well, so
+  // "doe" finds it too
+  private static Document toDocument(UUID id, String name, String email,
+      String address) {
+    Document document = new Document();
+    document.add(new StringField(ID, id.toString(), Field.Store.YES));
+    document.add(new TextField(NAME, name, Field.Store.NO));
+    document.add(new TextField(EMAIL, email, Field.Store.NO));
+    document.add(new TextField(EMAIL, email.replaceAll("\\W+", " "),
+        Field.Store.NO));
+    document.add(new TextField(ADDRESS, address, Field.Store.NO));
+    return document;
+  }
+}
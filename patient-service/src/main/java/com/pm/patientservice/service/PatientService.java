@@ -1,81 +1,284 @@
 package com.pm.patientservice.service;
 
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientPatchRequestDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
 import com.pm.patientservice.exception.EmailAlreadyExistsException;
 import com.pm.patientservice.exception.PatientNotFoundException;
-import com.pm.patientservice.grpc.BillingServiceGrpcClient;
-import com.pm.patientservice.kafka.KafkaProducer;
+import com.pm.patientservice.exception.PatientVersionConflictException;
+import com.pm.patientservice.kafka.PatientEventOutbox;
 import com.pm.patientservice.mapper.PatientMapper;
 import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
 import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.util.ConstraintViolationUtil;
+import com.pm.patientservice.util.CursorUtil;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class PatientService {
 
+  public static final String PATIENT_CACHE = "patients";
+
   private final PatientRepository patientRepository;
-  private final BillingServiceGrpcClient billingServiceGrpcClient;
-  private final KafkaProducer kafkaProducer;
+  private final BillingProvisioningService billingProvisioningService;
+  private final PatientEventOutbox patientEventOutbox;
+  private final RecentPatientWrites recentPatientWrites;
+  private final PatientStatistics patientStatistics;
+  private final PatientSearchIndex patientSearchIndex;
+  private final PatientResponseCache patientResponseCache;
+  private final TransactionTemplate transactionTemplate;
+  private final Cache secondLevelCache;
+  private final int maxPageSize;
+  private final MeterRegistry meterRegistry;
+  private final Timer insertTimer;
+  private final Timer billingTimer;
 
   public PatientService(PatientRepository patientRepository,
-      BillingServiceGrpcClient billingServiceGrpcClient,
-      KafkaProducer kafkaProducer) {
+      BillingProvisioningService billingProvisioningService,
+      PatientEventOutbox patientEventOutbox,
+      RecentPatientWrites recentPatientWrites,
+      PatientStatistics patientStatistics,
+      PatientSearchIndex patientSearchIndex,
+      PatientResponseCache patientResponseCache,
+      TransactionTemplate transactionTemplate,
+      EntityManagerFactory entityManagerFactory,
+      @Value("${patient.pagination.max-limit:500}") int maxPageSize,
+      MeterRegistry meterRegistry) {
     this.patientRepository = patientRepository;
-    this.billingServiceGrpcClient = billingServiceGrpcClient;
-    this.kafkaProducer = kafkaProducer;
+    this.billingProvisioningService = billingProvisioningService;
+    this.patientEventOutbox = patientEventOutbox;
+    this.recentPatientWrites = recentPatientWrites;
+    this.patientStatistics = patientStatistics;
+    this.patientSearchIndex = patientSearchIndex;
+    this.patientResponseCache = patientResponseCache;
+    this.transactionTemplate = transactionTemplate;
+    this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class)
+        .getCache();
+    this.maxPageSize = maxPageSize;
+    this.meterRegistry = meterRegistry;
+    this.insertTimer = createStageTimer("insert", meterRegistry);
+    this.billingTimer = createStageTimer("billing", meterRegistry);
+  }
+
+  // Reads select PatientView projections in read-only transactions: Hibernate
+  // skips the flush, and there are no managed entities or snapshots to build.
+  // With read replicas configured, read-only transactions run on a replica.
+  @Transactional(readOnly = true)
+  public PatientPageResponseDTO getPatients(String after, int limit) {
+    int pageSize = Math.clamp(limit, 1, maxPageSize);
+
+    // Fetch one extra row to find out whether another page follows
+    Limit fetchLimit = Limit.of(pageSize + 1);
+    List<PatientView> patients = after == null || after.isBlank()
+        ? patientRepository.findAllByOrderByIdAsc(fetchLimit)
+        : patientRepository.findByIdGreaterThanOrderByIdAsc(
+            CursorUtil.decode(after), fetchLimit);
+
+    boolean hasMore = patients.size() > pageSize;
+    List<PatientView> page = hasMore ? patients.subList(0, pageSize) : patients;
+
+    String nextCursor = hasMore
+        ? CursorUtil.encode(page.get(page.size() - 1).id())
+        : null;
+
+    return new PatientPageResponseDTO(
+        page.stream().map(PatientMapper::toDTO).toList(), nextCursor);
   }
 
-  public List<PatientResponseDTO> getPatients() {
-    List<Patient> patients = patientRepository.findAll();
+  // A miss in the response cache loads the entity by id, so it is answered
+  // from the second-level cache when the patient was written or read through
+  // this instance since; only then does it go to the table. A patient changed
+  // within the replica lag is read from the primary.
+  public PatientResponseDTO getPatient(UUID id) {
+    return patientResponseCache.get(id, () -> {
+      Patient patient = recentPatientWrites.readYourWrites(id,
+          () -> patientRepository.findById(id)).orElseThrow(
+          () -> new PatientNotFoundException("Patient not found with ID: " + id));
 
-    return patients.stream().map(PatientMapper::toDTO).toList();
+      return PatientMapper.toDTO(patient);
+    });
   }
 
-  public PatientResponseDTO createPatient(PatientRequestDTO patientRequestDTO) {
-    if (patientRepository.existsByEmail(patientRequestDTO.getEmail())) {
-      throw new EmailAlreadyExistsException(
-          "A patient with this email " + "already exists"
-              + patientRequestDTO.getEmail());
+  // Ranked ids come from the search index, the patients from the table by
+  // primary key; ids the index still has for deleted patients are dropped
+  @Transactional(readOnly = true)
+  public List<PatientResponseDTO> searchPatients(String query, int limit) {
+    List<UUID> ids = patientSearchIndex.search(query, limit);
+    if (ids.isEmpty()) {
+      return List.of();
     }
 
-    Patient newPatient = patientRepository.save(
-        PatientMapper.toModel(patientRequestDTO));
+    Map<UUID, PatientView> patients = patientRepository.findViewsByIdIn(ids)
+        .stream().collect(Collectors.toMap(PatientView::id, Function.identity()));
+    return ids.stream().map(patients::get).filter(Objects::nonNull)
+        .map(PatientMapper::toDTO).toList();
+  }
 
-    billingServiceGrpcClient.createBillingAccount(newPatient.getId().toString(),
-        newPatient.getName(), newPatient.getEmail());
+  public PatientResponseDTO createPatient(PatientRequestDTO patientRequestDTO) {
+    Patient newPatient = insertPatient(patientRequestDTO);
 
-    kafkaProducer.sendEvent(newPatient);
+    // In async mode this only measures handing the call to gRPC; the call
+    // itself is timed by billing.grpc.client.calls
+    try {
+      billingTimer.record(() -> billingProvisioningService.provision(newPatient));
+    } catch (StatusRuntimeException e) {
+      countCreateFailure("billing_" + e.getStatus().getCode().name().toLowerCase());
+      throw e;
+    }
 
     return PatientMapper.toDTO(newPatient);
   }
 
+  // The patient row and its event commit together; OutboxRelay publishes it.
+  // Email uniqueness is left to the unique constraint: no pre-check query
+  // and no window between check and insert.
+  private Patient insertPatient(PatientRequestDTO patientRequestDTO) {
+    try {
+      return insertTimer.record(() -> transactionTemplate.execute(status -> {
+        Patient patient = patientRepository.save(
+            PatientMapper.toModel(patientRequestDTO));
+        patientEventOutbox.enqueue(patient, "PATIENT_CREATED");
+        patientStatistics.recordCreated(List.of(patient));
+        return patient;
+      }));
+    } catch (DataIntegrityViolationException e) {
+      RuntimeException translated = toEmailAlreadyExists(e,
+          patientRequestDTO.getEmail());
+      countCreateFailure(translated == e ? "data_integrity" : "email_conflict");
+      throw translated;
+    }
+  }
+
+  // Evicts the local entry once committed; other replicas evict on the
+  // PATIENT_UPDATED event
   public PatientResponseDTO updatePatient(UUID id,
       PatientRequestDTO patientRequestDTO) {
 
-    Patient patient = patientRepository.findById(id).orElseThrow(
-        () -> new PatientNotFoundException("Patient not found with ID: " + id));
+    Patient updatedPatient;
+    try {
+      updatedPatient = transactionTemplate.execute(status -> {
+        Patient patient = patientRepository.findById(id).orElseThrow(
+            () -> new PatientNotFoundException(
+                "Patient not found with ID: " + id));
 
-    if (patientRepository.existsByEmailAndIdNot(patientRequestDTO.getEmail(),
-        id)) {
-      throw new EmailAlreadyExistsException(
-          "A patient with this email " + "already exists"
-              + patientRequestDTO.getEmail());
+        LocalDate previousDateOfBirth = patient.getDateOfBirth();
+        patient.setName(patientRequestDTO.getName());
+        patient.setAddress(patientRequestDTO.getAddress());
+        patient.setEmail(patientRequestDTO.getEmail());
+        patient.setDateOfBirth(
+            LocalDate.parse(patientRequestDTO.getDateOfBirth()));
+
+        Patient saved = patientRepository.saveAndFlush(patient);
+        patientEventOutbox.enqueue(saved, "PATIENT_UPDATED");
+        patientStatistics.recordDateOfBirthChanged(previousDateOfBirth,
+            saved.getDateOfBirth());
+        return saved;
+      });
+    } catch (DataIntegrityViolationException e) {
+      throw toEmailAlreadyExists(e, patientRequestDTO.getEmail());
     }
+    patientResponseCache.evict(id);
+    return PatientMapper.toDTO(updatedPatient);
+  }
 
-    patient.setName(patientRequestDTO.getName());
-    patient.setAddress(patientRequestDTO.getAddress());
-    patient.setEmail(patientRequestDTO.getEmail());
-    patient.setDateOfBirth(LocalDate.parse(patientRequestDTO.getDateOfBirth()));
+  // One conditional UPDATE of the supplied fields instead of a read-modify-write
+  // of the whole row; the row is read back afterwards for the response and event
+  public PatientResponseDTO patchPatient(UUID id,
+      PatientPatchRequestDTO patientPatchRequestDTO) {
 
-    Patient updatedPatient = patientRepository.save(patient);
-    return PatientMapper.toDTO(updatedPatient);
+    LocalDate dateOfBirth = patientPatchRequestDTO.getDateOfBirth() == null
+        ? null : LocalDate.parse(patientPatchRequestDTO.getDateOfBirth());
+
+    Patient patchedPatient;
+    try {
+      patchedPatient = transactionTemplate.execute(status -> {
+        // Only needed for the statistics, and only when the date of birth is
+        // patched. If the patch applies, this read saw the version it replaced.
+        LocalDate previousDateOfBirth = dateOfBirth == null ? null
+            : patientRepository.findViewById(id)
+                .map(PatientView::dateOfBirth).orElse(null);
+
+        int updated = patientRepository.patch(id,
+            patientPatchRequestDTO.getVersion(), patientPatchRequestDTO.getName(),
+            patientPatchRequestDTO.getEmail(), patientPatchRequestDTO.getAddress(),
+            dateOfBirth);
+
+        Patient patient = patientRepository.findCurrentById(id).orElseThrow(
+            () -> new PatientNotFoundException(
+                "Patient not found with ID: " + id));
+        if (updated == 0) {
+          throw new PatientVersionConflictException("Patient " + id
+              + " is at version " + patient.getVersion() + ", not "
+              + patientPatchRequestDTO.getVersion());
+        }
+
+        patientEventOutbox.enqueue(patient, "PATIENT_UPDATED");
+        if (previousDateOfBirth != null) {
+          patientStatistics.recordDateOfBirthChanged(previousDateOfBirth,
+              dateOfBirth);
+        }
+        return patient;
+      });
+    } catch (DataIntegrityViolationException e) {
+      throw toEmailAlreadyExists(e, patientPatchRequestDTO.getEmail());
+    }
+
+    // The native update leaves the second-level cache to us: only this
+    // patient is evicted
+    secondLevelCache.evictEntityData(Patient.class, id);
+    patientResponseCache.evict(id);
+    return PatientMapper.toDTO(patchedPatient);
   }
 
   public void deletePatient(UUID id) {
-    patientRepository.deleteById(id);
+    transactionTemplate.executeWithoutResult(status ->
+        patientRepository.findById(id).ifPresent(patient -> {
+          patientRepository.delete(patient);
+          patientEventOutbox.enqueue(patient, "PATIENT_DELETED");
+          patientStatistics.recordDeleted(patient);
+        }));
+    patientResponseCache.evict(id);
+  }
+
+  private static Timer createStageTimer(String stage,
+      MeterRegistry meterRegistry) {
+    return Timer.builder("patient.create.stage")
+        .description("Time spent in each stage of creating a patient")
+        .tag("stage", stage)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private void countCreateFailure(String cause) {
+    meterRegistry.counter("patient.create.failures", "cause", cause).increment();
+  }
+
+  private RuntimeException toEmailAlreadyExists(
+      DataIntegrityViolationException e, String email) {
+    if (!ConstraintViolationUtil.isEmailConflict(e)) {
+      return e;
+    }
+    return new EmailAlreadyExistsException(
+        "A patient with this email " + "already exists" + email);
   }
 }
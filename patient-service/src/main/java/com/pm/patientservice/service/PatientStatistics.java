@@ -0,0 +1,244 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientStatisticsResponseDTO;
+import com.pm.patientservice.model.DateCount;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.util.AfterCommit;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Patient totals, registrations per month and age buckets, kept in memory so
+// reports never run COUNT(*)/GROUP BY over the patient table. Loaded from two
+// per-date aggregates at startup, then moved by every committed create, date
+// of birth change and delete made through this instance.
+//
+// Changes made on other instances are only picked up by the periodic resync,
+// so between resyncs each instance may be off by what the others wrote.
+// Local changes that commit while a resync queries are replayed onto the
+// recounted figures, as PatientDuplicateDetector does for its scans; one that
+// commits in the instant between the start of the resync and the query
+// snapshot is counted twice until the next resync.
+@Component
+public class PatientStatistics {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      PatientStatistics.class);
+
+  private static final int[] AGE_BUCKET_FLOORS = {0, 18, 35, 50, 65};
+  private static final String[] AGE_BUCKET_LABELS =
+      {"0-17", "18-34", "35-49", "50-64", "65+"};
+
+  private final PatientRepository patientRepository;
+  private final TransactionTemplate readOnlyTransaction;
+
+  // Guarded by lock, not a monitor: changes are applied on request threads,
+  // which may be virtual. Readers only see the published snapshot.
+  private final ReentrantLock lock = new ReentrantLock();
+  private final TreeMap<YearMonth, Long> registrationsPerMonth = new TreeMap<>();
+  private final Map<LocalDate, Long> patientsByDateOfBirth = new HashMap<>();
+  private final long[] ageBuckets = new long[AGE_BUCKET_FLOORS.length];
+  private LocalDate ageBucketsDate = LocalDate.now();
+  private long total;
+  private List<Runnable> changedDuringResync;
+
+  private volatile Snapshot snapshot = new Snapshot(ageBucketsDate,
+      new PatientStatisticsResponseDTO(0, Map.of(), Map.of()));
+
+  public PatientStatistics(PatientRepository patientRepository,
+      TransactionTemplate transactionTemplate) {
+    this.patientRepository = patientRepository;
+    this.readOnlyTransaction = new TransactionTemplate(
+        transactionTemplate.getTransactionManager());
+    this.readOnlyTransaction.setReadOnly(true);
+    // Both aggregates from one snapshot
+    this.readOnlyTransaction.setIsolationLevel(
+        TransactionDefinition.ISOLATION_REPEATABLE_READ);
+  }
+
+  // Ages move with the calendar, so the buckets are recounted from the
+  // per-date counts on the first read of each day; every other read is a
+  // volatile load
+  public PatientStatisticsResponseDTO get() {
+    LocalDate today = LocalDate.now();
+    Snapshot current = snapshot;
+    if (!current.date().equals(today)) {
+      lock.lock();
+      try {
+        if (!ageBucketsDate.equals(today)) {
+          recountAgeBuckets(today);
+          publish();
+        }
+        current = snapshot;
+      } finally {
+        lock.unlock();
+      }
+    }
+    return current.statistics();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${patient.statistics.resync-interval-ms:300000}",
+      initialDelayString = "${patient.statistics.resync-interval-ms:300000}")
+  public void resync() {
+    lock.lock();
+    try {
+      changedDuringResync = new ArrayList<>();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      List<List<DateCount>> counts = readOnlyTransaction.execute(status -> List.of(
+          patientRepository.countByRegisteredDate(),
+          patientRepository.countByDateOfBirth()));
+
+      lock.lock();
+      try {
+        registrationsPerMonth.clear();
+        patientsByDateOfBirth.clear();
+        total = 0;
+        for (DateCount registered : counts.get(0)) {
+          registrationsPerMonth.merge(YearMonth.from(registered.date()),
+              registered.count(), Long::sum);
+          total += registered.count();
+        }
+        for (DateCount born : counts.get(1)) {
+          patientsByDateOfBirth.put(born.date(), born.count());
+        }
+        recountAgeBuckets(LocalDate.now());
+        changedDuringResync.forEach(Runnable::run);
+        publish();
+      } finally {
+        lock.unlock();
+      }
+    } finally {
+      lock.lock();
+      try {
+        changedDuringResync = null;
+      } finally {
+        lock.unlock();
+      }
+    }
+    log.debug("Patient statistics resynced: {} patients", total);
+  }
+
+  public void recordCreated(Collection<Patient> patients) {
+    List<Change> changes = patients.stream()
+        .map(patient -> new Change(patient.getRegisteredDate(),
+            patient.getDateOfBirth(), 1))
+        .toList();
+    AfterCommit.run(() -> applyAll(changes));
+  }
+
+  public void recordDeleted(Patient patient) {
+    Change change = new Change(patient.getRegisteredDate(),
+        patient.getDateOfBirth(), -1);
+    AfterCommit.run(() -> applyAll(List.of(change)));
+  }
+
+  public void recordDateOfBirthChanged(LocalDate from, LocalDate to) {
+    if (from.equals(to)) {
+      return;
+    }
+    AfterCommit.run(() -> apply(() -> {
+      addBirth(from, -1);
+      addBirth(to, 1);
+    }));
+  }
+
+  private void applyAll(List<Change> changes) {
+    apply(() -> {
+      for (Change change : changes) {
+        total += change.delta();
+        registrationsPerMonth.merge(YearMonth.from(change.registeredDate()),
+            (long) change.delta(), PatientStatistics::sumOrRemove);
+        addBirth(change.dateOfBirth(), change.delta());
+      }
+    });
+  }
+
+  // During a resync the update is also kept, to be replayed onto the
+  // recounted figures
+  private void apply(Runnable update) {
+    lock.lock();
+    try {
+      update.run();
+      if (changedDuringResync != null) {
+        changedDuringResync.add(update);
+      }
+      publish();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void addBirth(LocalDate dateOfBirth, int delta) {
+    patientsByDateOfBirth.merge(dateOfBirth, (long) delta,
+        PatientStatistics::sumOrRemove);
+    ageBuckets[ageBucket(dateOfBirth, ageBucketsDate)] += delta;
+  }
+
+  private void recountAgeBuckets(LocalDate today) {
+    ageBucketsDate = today;
+    Arrays.fill(ageBuckets, 0);
+    patientsByDateOfBirth.forEach((dateOfBirth, count) ->
+        ageBuckets[ageBucket(dateOfBirth, today)] += count);
+  }
+
+  private void publish() {
+    Map<String, Long> registrations = new LinkedHashMap<>();
+    registrationsPerMonth.forEach((month, count) ->
+        registrations.put(month.toString(), count));
+
+    Map<String, Long> ages = new LinkedHashMap<>();
+    for (int i = 0; i < ageBuckets.length; i++) {
+      ages.put(AGE_BUCKET_LABELS[i], ageBuckets[i]);
+    }
+
+    snapshot = new Snapshot(ageBucketsDate, new PatientStatisticsResponseDTO(
+        total, Collections.unmodifiableMap(registrations),
+        Collections.unmodifiableMap(ages)));
+  }
+
+  private static int ageBucket(LocalDate dateOfBirth, LocalDate today) {
+    int age = Period.between(dateOfBirth, today).getYears();
+    int bucket = 0;
+    while (bucket + 1 < AGE_BUCKET_FLOORS.length
+        && age >= AGE_BUCKET_FLOORS[bucket + 1]) {
+      bucket++;
+    }
+    return bucket;
+  }
+
+  private static Long sumOrRemove(Long current, Long delta) {
+    long sum = current + delta;
+    return sum == 0 ? null : sum;
+  }
+
+  private record Change(LocalDate registeredDate, LocalDate dateOfBirth,
+      int delta) {
+  }
+
+  private record Snapshot(LocalDate date,
+      PatientStatisticsResponseDTO statistics) {
+  }
+}
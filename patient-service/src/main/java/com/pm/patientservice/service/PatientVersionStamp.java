@@ -0,0 +1,60 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.util.AfterCommit;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Version of the patient data as seen by this instance, used as the ETag of
+// patient list reads. Any change bumps it, so an unchanged stamp means a client's
+// copy is still current without querying or serializing anything.
+//
+// The stamp is local to this instance: a random epoch makes stamps from
+// different replicas (or from before a restart) never match, so a client that
+// moves between instances refetches rather than getting a wrong 304. Behind a
+// load balancer without session affinity the 304 rate drops to roughly one in
+// the number of replicas. Deriving it from shared state instead (the newest
+// outbox id, a sequence) is not safe: ids are taken before commit, so a change
+// committing after a newer one would leave the stamp where it was. Changes
+// made on other replicas arrive through the patient events, with the same lag
+// as cache invalidation.
+@Component
+public class PatientVersionStamp {
+
+  private final String epoch = Long.toHexString(new SecureRandom().nextLong());
+  private final AtomicLong version = new AtomicLong();
+  private final Executor afterReplicaLag;
+
+  // With read replicas a list read just after a change may still come from a
+  // replica without it, and would be cached by clients under the new stamp.
+  // Bumping once more after the replica lag makes them refetch.
+  public PatientVersionStamp(
+      @Value("${patient.datasource.replica-max-lag:PT0S}") Duration replicaMaxLag) {
+    this.afterReplicaLag = replicaMaxLag.isZero()
+        ? null
+        : CompletableFuture.delayedExecutor(
+            replicaMaxLag.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public String etag() {
+    return "\"" + epoch + "-" + version.get() + "\"";
+  }
+
+  // Bumped only once the change is committed: a reader that sees the new stamp
+  // must also see the new data, or a stale body would be cached under it
+  public void markChanged() {
+    AfterCommit.run(this::bump);
+  }
+
+  private void bump() {
+    version.incrementAndGet();
+    if (afterReplicaLag != null) {
+      afterReplicaLag.execute(version::incrementAndGet);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.pm.patientservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pm.patientservice.config.ReplicaRoutingDataSource;
+import com.pm.patientservice.util.AfterCommit;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Patients changed within the last replica-max-lag. Reads of those go to the
+// primary, so a client sees its own write (and the patient cache is never
+// refilled from a replica that has not caught up yet). Without replicas the
+// lag is zero and nothing is recorded.
+@Component
+public class RecentPatientWrites {
+
+  private final Cache<UUID, Boolean> recentWrites;
+  private final boolean enabled;
+
+  public RecentPatientWrites(
+      @Value("${patient.datasource.replica-max-lag:PT0S}") Duration maxLag) {
+    this.enabled = !maxLag.isZero();
+    this.recentWrites = Caffeine.newBuilder()
+        .maximumSize(100_000)
+        .expireAfterWrite(maxLag)
+        .build();
+  }
+
+  // The window starts once the change is committed, like the version stamp
+  public void recordAll(Collection<UUID> ids) {
+    if (!enabled) {
+      return;
+    }
+    AfterCommit.run(() -> ids.forEach(id -> recentWrites.put(id, Boolean.TRUE)));
+  }
+
+  public void record(UUID id) {
+    recordAll(List.of(id));
+  }
+
+  public <T> T readYourWrites(UUID id, Supplier<T> read) {
+    return recentWrites.getIfPresent(id) != null
+        ? ReplicaRoutingDataSource.usePrimary(read)
+        : read.get();
+  }
+}
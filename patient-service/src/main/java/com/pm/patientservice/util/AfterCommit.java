@@ -0,0 +1,28 @@
+package com.pm.patientservice.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Runs in-memory bookkeeping (stamps, counters, indexes) only for committed
+// changes: after the surrounding transaction commits, never on rollback, or
+// straight away when there is no transaction.
+public final class AfterCommit {
+
+  private AfterCommit() {
+  }
+
+  public static void run(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+}
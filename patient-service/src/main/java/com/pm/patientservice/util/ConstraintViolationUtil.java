@@ -0,0 +1,35 @@
+package com.pm.patientservice.util;
+
+import com.pm.patientservice.model.Patient;
+import java.util.Locale;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public class ConstraintViolationUtil {
+
+  private ConstraintViolationUtil() {
+  }
+
+  // Only a violation of the named email constraint counts: PostgreSQL reports
+  // it as uk_patient_email, H2 as the index behind it, in upper case and
+  // qualified by schema (PUBLIC.UK_PATIENT_EMAIL_INDEX_x)
+  public static boolean isEmailConflict(DataIntegrityViolationException e) {
+    Throwable cause = e.getCause();
+    while (cause != null && !(cause instanceof ConstraintViolationException)) {
+      cause = cause.getCause();
+    }
+
+    if (!(cause instanceof ConstraintViolationException violation)) {
+      return false;
+    }
+
+    String constraintName = violation.getConstraintName();
+    if (constraintName == null) {
+      return false;
+    }
+    String name = constraintName.substring(constraintName.lastIndexOf('.') + 1)
+        .toLowerCase(Locale.ROOT);
+    return name.equals(Patient.EMAIL_CONSTRAINT)
+        || name.startsWith(Patient.EMAIL_CONSTRAINT + "_index_");
+  }
+}
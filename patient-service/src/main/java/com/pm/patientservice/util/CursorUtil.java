@@ -0,0 +1,27 @@
+package com.pm.patientservice.util;
+
+import com.pm.patientservice.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+public class CursorUtil {
+
+  private CursorUtil() {
+  }
+
+  // Cursors are opaque to clients: the last seen sort key, base64url encoded
+  public static String encode(UUID lastSeenId) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(lastSeenId.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static UUID decode(String cursor) {
+    try {
+      byte[] decoded = Base64.getUrlDecoder().decode(cursor);
+      return UUID.fromString(new String(decoded, StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException("Invalid page cursor: " + cursor);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.pm.patientservice.util;
+
+// Jaro-Winkler similarity between 0 (nothing in common) and 1 (equal). It
+// counts characters shared within a window of half the longer string, so it
+// tolerates typos and transpositions, and rewards a common prefix of up to
+// four characters, where names are rarely misspelt.
+public final class StringSimilarity {
+
+  private static final double PREFIX_SCALE = 0.1;
+  private static final int MAX_PREFIX = 4;
+
+  private StringSimilarity() {
+  }
+
+  public static double jaroWinkler(String a, String b) {
+    if (a.equals(b)) {
+      return 1;
+    }
+    if (a.isEmpty() || b.isEmpty()) {
+      return 0;
+    }
+
+    int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+    boolean[] matchedA = new boolean[a.length()];
+    boolean[] matchedB = new boolean[b.length()];
+    int matches = 0;
+    for (int i = 0; i < a.length(); i++) {
+      int from = Math.max(0, i - window);
+      int to = Math.min(b.length() - 1, i + window);
+      for (int j = from; j <= to; j++) {
+        if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+          matchedA[i] = true;
+          matchedB[j] = true;
+          matches++;
+          break;
+        }
+      }
+    }
+    if (matches == 0) {
+      return 0;
+    }
+
+    // Matched characters that appear in a different order
+    int outOfOrder = 0;
+    for (int i = 0, j = 0; i < a.length(); i++) {
+      if (!matchedA[i]) {
+        continue;
+      }
+      while (!matchedB[j]) {
+        j++;
+      }
+      if (a.charAt(i) != b.charAt(j)) {
+        outOfOrder++;
+      }
+      j++;
+    }
+
+    double m = matches;
+    double jaro = (m / a.length() + m / b.length()
+        + (m - outOfOrder / 2.0) / m) / 3;
+
+    int prefix = 0;
+    int maxPrefix = Math.min(MAX_PREFIX, Math.min(a.length(), b.length()));
+    while (prefix < maxPrefix && a.charAt(prefix) == b.charAt(prefix)) {
+      prefix++;
+    }
+    return jaro + prefix * PREFIX_SCALE * (1 - jaro);
+  }
+}
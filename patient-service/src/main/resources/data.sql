@@ -3,12 +3,20 @@ CREATE TABLE IF NOT EXISTS patient
 (
     id              UUID PRIMARY KEY,
     name            VARCHAR(255)        NOT NULL,
-    email           VARCHAR(255) UNIQUE NOT NULL,
+    email           VARCHAR(255)        NOT NULL,
     address         VARCHAR(255)        NOT NULL,
     date_of_birth   DATE                NOT NULL,
-    registered_date DATE                NOT NULL
+    registered_date DATE                NOT NULL,
+    CONSTRAINT uk_patient_email UNIQUE (email)
 );
 
+-- Older databases have the unnamed constraint PostgreSQL called
+-- patient_email_key; Hibernate adds uk_patient_email in its place
+ALTER TABLE patient DROP CONSTRAINT IF EXISTS patient_email_key;
+
+-- Optimistic locking column for PUT/PATCH; existing rows start at version 0
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 -- Insert well-known UUIDs for specific patients
 INSERT INTO patient (id, name, email, address, date_of_birth, registered_date)
 SELECT '123e4567-e89b-12d3-a456-426614174000',
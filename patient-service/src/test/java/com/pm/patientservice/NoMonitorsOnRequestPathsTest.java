@@ -0,0 +1,50 @@
+package com.pm.patientservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// On JDK 21 a virtual thread that holds or waits for a monitor pins its
+// carrier, so with spring.threads.virtual.enabled a synchronized block on a
+// request path caps concurrency at the number of carriers. The load test
+// catches pinning that parks (-Djdk.tracePinnedThreads); this catches the
+// monitors themselves before they ship.
+class NoMonitorsOnRequestPathsTest {
+
+    // Only ever run on platform threads of their own
+    private static final Set<String> ALLOWED = Set.of(
+            "PatientSearchIndex.java");
+
+    @Test
+    void testMainSources_UseNoSynchronizedOutsideAllowList() throws IOException {
+        // When
+        List<String> offenders;
+        try (Stream<Path> sources = Files.walk(Path.of("src/main/java"))) {
+            offenders = sources
+                    .filter(path -> path.toString().endsWith(".java"))
+                    .filter(path -> !ALLOWED.contains(path.getFileName().toString()))
+                    .filter(path -> read(path).contains("synchronized"))
+                    .map(Path::toString)
+                    .toList();
+        }
+
+        // Then
+        assertThat(offenders).isEmpty();
+    }
+
+    private static String read(Path path) {
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
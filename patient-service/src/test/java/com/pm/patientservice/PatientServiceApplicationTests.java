@@ -1,11 +1,28 @@
 package com.pm.patientservice;
 
+import java.nio.file.Path;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
+// The search index lives in a temp dir that is deleted after the class; the
+// context is closed first so the index is not written to once it is gone
 @SpringBootTest
+@DirtiesContext
 class PatientServiceApplicationTests {
 
+  @TempDir
+  static Path searchIndexDir;
+
+  @DynamicPropertySource
+  static void searchIndexProperties(DynamicPropertyRegistry registry) {
+    registry.add("patient.search.index-dir",
+        () -> searchIndexDir.resolve("index").toString());
+  }
+
   @Test
   void contextLoads() {
   }
@@ -0,0 +1,39 @@
+package com.pm.patientservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.convert.ConversionService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadReplicaDataSourceConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(ReadReplicaDataSourceConfig.class)
+            // Converts "PT2S" to a Duration, as in the application
+            .withBean("conversionService", ConversionService.class,
+                    ApplicationConversionService::getSharedInstance)
+            .withBean(DataSourceProperties.class, DataSourceProperties::new)
+            .withBean(SimpleMeterRegistry.class)
+            .withPropertyValues("spring.datasource.url=jdbc:h2:mem:primary",
+                    "patient.datasource.replica-urls=jdbc:h2:mem:replica");
+
+    @Test
+    void testReplicas_WithoutMaxLag_FailStartup() {
+        // When & Then
+        contextRunner.run(context -> assertThat(context).hasFailed()
+                .getFailure().rootCause()
+                .hasMessageContaining("patient.datasource.replica-max-lag"));
+    }
+
+    @Test
+    void testReplicas_WithMaxLag_RouteThroughReplicas() {
+        // When & Then
+        contextRunner.withPropertyValues("patient.datasource.replica-max-lag=PT2S")
+                .run(context -> assertThat(context).hasNotFailed()
+                        .hasSingleBean(ReplicaRoutingDataSource.class));
+    }
+}
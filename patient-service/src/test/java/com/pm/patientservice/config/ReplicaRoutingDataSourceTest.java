@@ -0,0 +1,96 @@
+package com.pm.patientservice.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica1;
+    private DataSource replica2;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = dataSource();
+        replica1 = dataSource();
+        replica2 = dataSource();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(primary);
+        // Known defaults, so the proxy does not fetch a connection to look them up
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.setReadOnlyDataSource(
+                new ReplicaRoutingDataSource(primary, List.of(replica1, replica2)));
+
+        DataSourceTransactionManager transactionManager =
+                new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void testReadOnlyTransactions_RoundRobinOverReplicas() throws SQLException {
+        // When
+        readOnly.executeWithoutResult(status -> jdbcTemplate.execute("SELECT 1"));
+        readOnly.executeWithoutResult(status -> jdbcTemplate.execute("SELECT 1"));
+
+        // Then
+        verify(replica1, times(1)).getConnection();
+        verify(replica2, times(1)).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void testReadWriteTransaction_UsesPrimary() throws SQLException {
+        // When
+        readWrite.executeWithoutResult(status -> jdbcTemplate.execute("UPDATE patient"));
+
+        // Then
+        verify(primary).getConnection();
+        verify(replica1, never()).getConnection();
+        verify(replica2, never()).getConnection();
+    }
+
+    @Test
+    void testUsePrimary_ReadOnlyTransaction_UsesPrimary() throws SQLException {
+        // When
+        readOnly.executeWithoutResult(status -> ReplicaRoutingDataSource.usePrimary(
+                () -> jdbcTemplate.update("UPDATE patient")));
+
+        // Then
+        verify(primary).getConnection();
+        verify(replica1, never()).getConnection();
+        verify(replica2, never()).getConnection();
+    }
+
+    private static DataSource dataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class, RETURNS_DEEP_STUBS);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        when(connection.isReadOnly()).thenReturn(false);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -1,28 +1,61 @@
 package com.pm.patientservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.dto.DuplicateCandidateDTO;
+import com.pm.patientservice.dto.PatientBatchItemResultDTO;
+import com.pm.patientservice.dto.PatientBatchResponseDTO;
+import com.pm.patientservice.dto.PatientImportResponseDTO;
+import com.pm.patientservice.dto.PatientImportRowErrorDTO;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientPatchRequestDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientStatisticsResponseDTO;
+import com.pm.patientservice.exception.PatientNotFoundException;
+import com.pm.patientservice.exception.PatientVersionConflictException;
+import com.pm.patientservice.service.IdempotencyKeyStore;
+import com.pm.patientservice.service.PatientBatchService;
+import com.pm.patientservice.service.PatientDuplicateDetector;
+import com.pm.patientservice.service.PatientExportService;
+import com.pm.patientservice.service.PatientImportService;
 import com.pm.patientservice.service.PatientService;
+import com.pm.patientservice.service.PatientStatistics;
+import com.pm.patientservice.service.PatientVersionStamp;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.mockito.ArgumentCaptor;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import patient.api.Patient;
+import patient.api.PatientPage;
+import patient.api.PatientRequest;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(PatientController.class)
+// The concurrency limit filter is covered by ConcurrencyLimitFilterTest
+@WebMvcTest(controllers = PatientController.class,
+        properties = "patient.concurrency.enabled=false")
+@Import(IdempotencyKeyStore.class)
 @ActiveProfiles("test")
 class PatientControllerTest {
 
@@ -32,6 +65,24 @@ class PatientControllerTest {
     @MockBean
     private PatientService patientService;
 
+    @MockBean
+    private PatientExportService patientExportService;
+
+    @MockBean
+    private PatientBatchService patientBatchService;
+
+    @MockBean
+    private PatientImportService patientImportService;
+
+    @MockBean
+    private PatientVersionStamp patientVersionStamp;
+
+    @MockBean
+    private PatientStatistics patientStatistics;
+
+    @MockBean
+    private PatientDuplicateDetector patientDuplicateDetector;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -41,6 +92,7 @@ class PatientControllerTest {
 
     @BeforeEach
     void setUp() {
+        when(patientVersionStamp.etag()).thenReturn("\"v1\"");
         testPatientId = UUID.randomUUID();
         
         testPatientResponse = new PatientResponseDTO();
@@ -49,6 +101,8 @@ class PatientControllerTest {
         testPatientResponse.setEmail("john.doe@example.com");
         testPatientResponse.setAddress("123 Main St");
         testPatientResponse.setDateOfBirth("1990-01-01");
+        testPatientResponse.setBillingStatus("PROVISIONED");
+        testPatientResponse.setVersion(3L);
 
         testPatientRequest = new PatientRequestDTO();
         testPatientRequest.setName("John Doe");
@@ -59,21 +113,224 @@ class PatientControllerTest {
     }
 
     @Test
-    void testGetPatients_ReturnsPatientList() throws Exception {
+    void testGetPatients_ReturnsPatientPage() throws Exception {
         // Given
         List<PatientResponseDTO> patients = Arrays.asList(testPatientResponse);
-        when(patientService.getPatients()).thenReturn(patients);
+        when(patientService.getPatients(isNull(), anyInt()))
+                .thenReturn(new PatientPageResponseDTO(patients, "next-cursor"));
 
         // When & Then
         mockMvc.perform(get("/patients"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$.patients").isArray())
+                .andExpect(jsonPath("$.patients[0].id").value(testPatientId.toString()))
+                .andExpect(jsonPath("$.patients[0].name").value("John Doe"))
+                .andExpect(jsonPath("$.patients[0].email").value("john.doe@example.com"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"));
+
+        verify(patientService).getPatients(null, 50);
+    }
+
+    @Test
+    void testGetPatients_AcceptProtobuf_ReturnsProtobufPage() throws Exception {
+        // Given
+        when(patientService.getPatients(isNull(), anyInt()))
+                .thenReturn(new PatientPageResponseDTO(List.of(testPatientResponse), "next-cursor"));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/patients").accept("application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn();
+
+        // Then
+        PatientPage page = PatientPage.parseFrom(result.getResponse().getContentAsByteArray());
+        assertThat(page.getPatientsCount()).isEqualTo(1);
+        assertThat(page.getPatients(0).getId()).isEqualTo(testPatientId.toString());
+        assertThat(page.getPatients(0).getName()).isEqualTo("John Doe");
+        assertThat(page.getNextCursor()).isEqualTo("next-cursor");
+    }
+
+    @Test
+    void testGetPatients_WithCursorAndLimit_PassesThemToService() throws Exception {
+        // Given
+        when(patientService.getPatients("abc", 10))
+                .thenReturn(new PatientPageResponseDTO(List.of(), null));
+
+        // When & Then
+        mockMvc.perform(get("/patients").param("after", "abc").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.patients").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(patientService).getPatients("abc", 10);
+    }
+
+    @Test
+    void testGetPatients_ReturnsVersionStampAsETag() throws Exception {
+        // Given
+        when(patientService.getPatients(isNull(), anyInt()))
+                .thenReturn(new PatientPageResponseDTO(List.of(), null));
+
+        // When & Then
+        mockMvc.perform(get("/patients"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void testGetPatients_MatchingIfNoneMatch_ReturnsNotModifiedWithoutQuerying() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/patients").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string(""));
+
+        verifyNoInteractions(patientService);
+    }
+
+    @Test
+    void testGetPatients_StaleIfNoneMatch_ReturnsPage() throws Exception {
+        // Given
+        when(patientService.getPatients(isNull(), anyInt()))
+                .thenReturn(new PatientPageResponseDTO(List.of(), null));
+
+        // When & Then
+        mockMvc.perform(get("/patients").header("If-None-Match", "\"v0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v1\""));
+    }
+
+    @Test
+    void testGetStatistics_ReturnsCountersWithoutQueryingPatients() throws Exception {
+        // Given
+        when(patientStatistics.get()).thenReturn(new PatientStatisticsResponseDTO(3,
+                Map.of("2024-05", 3L), Map.of("18-34", 2L, "65+", 1L)));
+
+        // When & Then
+        mockMvc.perform(get("/patients/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.registrationsPerMonth['2024-05']").value(3))
+                .andExpect(jsonPath("$.ageBuckets['65+']").value(1));
+
+        verifyNoInteractions(patientService);
+    }
+
+    @Test
+    void testSearchPatients_ReturnsRankedPatients() throws Exception {
+        // Given
+        when(patientService.searchPatients("jo smi", 5)).thenReturn(List.of(testPatientResponse));
+
+        // When & Then
+        mockMvc.perform(get("/patients/search").param("q", "jo smi").param("limit", "5"))
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(testPatientId.toString()))
-                .andExpect(jsonPath("$[0].name").value("John Doe"))
-                .andExpect(jsonPath("$[0].email").value("john.doe@example.com"));
+                .andExpect(jsonPath("$[0].name").value("John Doe"));
+    }
+
+    @Test
+    void testSearchPatients_AcceptProtobuf_ReturnsNotAcceptable() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/patients/search").param("q", "jo smi")
+                        .accept("application/x-protobuf"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void testGetDuplicates_ReturnsTopPairsWithoutQueryingPatients() throws Exception {
+        // Given
+        UUID candidateId = UUID.randomUUID();
+        when(patientDuplicateDetector.topCandidates(10)).thenReturn(List.of(
+                new DuplicateCandidateDTO(testPatientId.toString(), candidateId.toString(), 0.93)));
+
+        // When & Then
+        mockMvc.perform(get("/patients/duplicates").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].patientId").value(testPatientId.toString()))
+                .andExpect(jsonPath("$[0].candidateId").value(candidateId.toString()))
+                .andExpect(jsonPath("$[0].score").value(0.93));
+
+        verifyNoInteractions(patientService);
+    }
+
+    @Test
+    void testGetPatientDuplicates_ReturnsCandidatesOfPatient() throws Exception {
+        // Given
+        UUID candidateId = UUID.randomUUID();
+        when(patientDuplicateDetector.candidatesOf(testPatientId)).thenReturn(List.of(
+                new DuplicateCandidateDTO(testPatientId.toString(), candidateId.toString(), 0.9)));
+
+        // When & Then
+        mockMvc.perform(get("/patients/{id}/duplicates", testPatientId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].candidateId").value(candidateId.toString()));
+    }
+
+    @Test
+    void testGetPatientDuplicates_UnknownPatient_ReturnsBadRequest() throws Exception {
+        // Given
+        when(patientDuplicateDetector.candidatesOf(testPatientId))
+                .thenThrow(new PatientNotFoundException("Patient not found with ID: " + testPatientId));
+
+        // When & Then
+        mockMvc.perform(get("/patients/{id}/duplicates", testPatientId))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Patient not found"));
+    }
+
+    @Test
+    void testGetPatient_ExistingPatient_ReturnsPatientTaggedWithVersion() throws Exception {
+        // Given
+        when(patientService.getPatient(testPatientId)).thenReturn(testPatientResponse);
+
+        // When & Then
+        mockMvc.perform(get("/patients/{id}", testPatientId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-PROVISIONED\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(jsonPath("$.id").value(testPatientId.toString()))
+                .andExpect(jsonPath("$.name").value("John Doe"));
+
+        verify(patientService).getPatient(testPatientId);
+    }
+
+    @Test
+    void testGetPatient_MatchingIfNoneMatch_ReturnsNotModified() throws Exception {
+        // Given
+        when(patientService.getPatient(testPatientId)).thenReturn(testPatientResponse);
+
+        // When & Then
+        mockMvc.perform(get("/patients/{id}", testPatientId).header("If-None-Match", "\"3-PROVISIONED\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string(""));
+    }
 
-        verify(patientService).getPatients();
+    @Test
+    void testGetPatient_BillingStatusChanged_ReturnsPatient() throws Exception {
+        // Given: billing status changes keep the version
+        testPatientResponse.setBillingStatus("FAILED");
+        when(patientService.getPatient(testPatientId)).thenReturn(testPatientResponse);
+
+        // When & Then
+        mockMvc.perform(get("/patients/{id}", testPatientId).header("If-None-Match", "\"3-PROVISIONED\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-FAILED\""));
+    }
+
+    @Test
+    void testGetPatient_UnknownPatient_ReturnsBadRequest() throws Exception {
+        // Given
+        when(patientService.getPatient(testPatientId))
+                .thenThrow(new PatientNotFoundException("Patient not found with ID: " + testPatientId));
+
+        // When & Then
+        mockMvc.perform(get("/patients/{id}", testPatientId))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Patient not found"));
     }
 
     @Test
@@ -94,6 +351,95 @@ class PatientControllerTest {
         verify(patientService).createPatient(any(PatientRequestDTO.class));
     }
 
+    @Test
+    void testCreatePatient_ProtobufRequest_ReturnsProtobufPatient() throws Exception {
+        // Given
+        when(patientService.createPatient(any(PatientRequestDTO.class)))
+                .thenReturn(testPatientResponse);
+        PatientRequest request = PatientRequest.newBuilder()
+                .setName("John Doe")
+                .setEmail("john.doe@example.com")
+                .setAddress("123 Main St")
+                .setDateOfBirth("1990-01-01")
+                .setRegisteredDate("2024-01-01")
+                .build();
+
+        // When
+        MvcResult result = mockMvc.perform(post("/patients")
+                        .contentType("application/x-protobuf")
+                        .accept("application/x-protobuf")
+                        .content(request.toByteArray()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Then
+        ArgumentCaptor<PatientRequestDTO> captor = ArgumentCaptor.forClass(PatientRequestDTO.class);
+        verify(patientService).createPatient(captor.capture());
+        assertThat(captor.getValue().getEmail()).isEqualTo("john.doe@example.com");
+        assertThat(captor.getValue().getRegisteredDate()).isEqualTo("2024-01-01");
+        assertThat(Patient.parseFrom(result.getResponse().getContentAsByteArray()).getName())
+                .isEqualTo("John Doe");
+    }
+
+    @Test
+    void testCreatePatient_ProtobufRequestMissingName_ReturnsBadRequest() throws Exception {
+        // Given
+        PatientRequest request = PatientRequest.newBuilder()
+                .setEmail("john.doe@example.com")
+                .setAddress("123 Main St")
+                .setDateOfBirth("1990-01-01")
+                .setRegisteredDate("2024-01-01")
+                .build();
+
+        // When & Then
+        mockMvc.perform(post("/patients")
+                        .contentType("application/x-protobuf")
+                        .content(request.toByteArray()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.name").value("Name is required"));
+
+        verifyNoInteractions(patientService);
+    }
+
+    @Test
+    void testCreatePatient_RetryWithSameIdempotencyKey_ReplaysOriginalResponse() throws Exception {
+        // Given
+        when(patientService.createPatient(any(PatientRequestDTO.class)))
+                .thenReturn(testPatientResponse);
+        String body = objectMapper.writeValueAsString(testPatientRequest);
+
+        // When & Then
+        mockMvc.perform(post("/patients").header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+        mockMvc.perform(post("/patients").header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(testPatientId.toString()));
+
+        verify(patientService, times(1)).createPatient(any(PatientRequestDTO.class));
+    }
+
+    @Test
+    void testCreatePatient_IdempotencyKeyReusedForDifferentRequest_ReturnsUnprocessableEntity() throws Exception {
+        // Given
+        when(patientService.createPatient(any(PatientRequestDTO.class)))
+                .thenReturn(testPatientResponse);
+        mockMvc.perform(post("/patients").header("Idempotency-Key", "reused")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testPatientRequest)))
+                .andExpect(status().isOk());
+        testPatientRequest.setName("Someone Else");
+
+        // When & Then
+        mockMvc.perform(post("/patients").header("Idempotency-Key", "reused")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testPatientRequest)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     void testCreatePatient_InvalidEmail_ReturnsBadRequest() throws Exception {
         // Given
@@ -122,6 +468,47 @@ class PatientControllerTest {
         verify(patientService, never()).createPatient(any(PatientRequestDTO.class));
     }
 
+    @Test
+    void testCreatePatients_Batch_ReturnsPerItemResults() throws Exception {
+        // Given
+        when(patientBatchService.createPatients(anyList()))
+                .thenReturn(new PatientBatchResponseDTO(List.of(
+                        PatientBatchItemResultDTO.created(0, testPatientResponse),
+                        PatientBatchItemResultDTO.failed(1,
+                                Map.of("message", "Email address already exists")))));
+
+        // When & Then
+        mockMvc.perform(post("/patients/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                List.of(testPatientRequest, testPatientRequest))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].patient.name").value("John Doe"))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"));
+
+        verify(patientBatchService).createPatients(anyList());
+    }
+
+    @Test
+    void testImportPatients_Csv_ReturnsImportReport() throws Exception {
+        // Given
+        when(patientImportService.importPatients(any())).thenReturn(new PatientImportResponseDTO(
+                2, 1, 0, 1, List.of(new PatientImportRowErrorDTO(2,
+                        Map.of("email", "Email address already exists"))), false));
+
+        // When & Then
+        mockMvc.perform(post("/patients/import")
+                        .contentType("text/csv")
+                        .content("name,email,address,dateOfBirth,registeredDate\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2));
+    }
+
     @Test
     void testUpdatePatient_ExistingPatient_ReturnsUpdatedPatient() throws Exception {
         // Given
@@ -139,6 +526,62 @@ class PatientControllerTest {
         verify(patientService).updatePatient(eq(testPatientId), any(PatientRequestDTO.class));
     }
 
+    @Test
+    void testPatchPatient_OnlyChangedFields_ReturnsPatchedPatient() throws Exception {
+        // Given
+        when(patientService.patchPatient(eq(testPatientId), any(PatientPatchRequestDTO.class)))
+                .thenReturn(testPatientResponse);
+
+        // When & Then
+        mockMvc.perform(patch("/patients/{id}", testPatientId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"address\": \"1 New St\", \"version\": 3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("John Doe"));
+
+        verify(patientService).patchPatient(eq(testPatientId), argThat(request ->
+                "1 New St".equals(request.getAddress()) && request.getName() == null
+                        && request.getVersion() == 3L));
+    }
+
+    @Test
+    void testPatchPatient_MissingVersion_ReturnsBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(patch("/patients/{id}", testPatientId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"address\": \"1 New St\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.version").value("Version is required"));
+
+        verifyNoInteractions(patientService);
+    }
+
+    @Test
+    void testPatchPatient_BlankName_ReturnsBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(patch("/patients/{id}", testPatientId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"   \", \"version\": 3}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.name").value("Name cannot be blank"));
+
+        verifyNoInteractions(patientService);
+    }
+
+    @Test
+    void testPatchPatient_StaleVersion_ReturnsConflict() throws Exception {
+        // Given
+        when(patientService.patchPatient(eq(testPatientId), any(PatientPatchRequestDTO.class)))
+                .thenThrow(new PatientVersionConflictException("stale"));
+
+        // When & Then
+        mockMvc.perform(patch("/patients/{id}", testPatientId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Jane Doe\", \"version\": 1}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Patient was modified by another request"));
+    }
+
     @Test
     void testDeletePatient_ExistingPatient_ReturnsNoContent() throws Exception {
         // When & Then
@@ -147,4 +590,27 @@ class PatientControllerTest {
 
         verify(patientService).deletePatient(testPatientId);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testExportPatients_StreamsNdjson() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"name\":\"John Doe\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(patientExportService).exportPatients(any(OutputStream.class));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/patients/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"name\":\"John Doe\"}\n"));
+
+        verify(patientExportService).exportPatients(any(OutputStream.class));
+    }
+}
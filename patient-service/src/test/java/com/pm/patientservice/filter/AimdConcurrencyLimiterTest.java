@@ -0,0 +1,98 @@
+package com.pm.patientservice.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AimdConcurrencyLimiterTest {
+
+    private static final long THRESHOLD_NANOS = Duration.ofMillis(100).toNanos();
+
+    private final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(
+            4, 2, 6, Duration.ofMillis(100), 0.75);
+
+    @Test
+    void testTryAcquire_AtLimit_Rejects() {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        // When & Then
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.release(1, false);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void testUpdate_FastRequestsWhileBusy_IncreaseUpToMax() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            limiter.update(4, 1, false, 0);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(6);
+    }
+
+    @Test
+    void testUpdate_FastRequestsWhileIdle_KeepLimit() {
+        // When
+        limiter.update(1, 1, false, 0);
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void testUpdate_SlowOrFailedRequests_BackOffOncePerThresholdDownToMin() {
+        // Given
+        long now = System.nanoTime();
+
+        // When
+        limiter.update(4, THRESHOLD_NANOS + 1, false, now);
+        int afterSlow = limiter.getLimit();
+        limiter.update(4, 1, true, now + 1);
+        int afterFailedSameWindow = limiter.getLimit();
+        limiter.update(4, 1, true, now + 3 * THRESHOLD_NANOS);
+
+        // Then
+        assertThat(afterSlow).isEqualTo(3);
+        assertThat(afterFailedSameWindow).isEqualTo(3);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void testUpdate_ConcurrentSlowRequests_BackOffOnce() throws Exception {
+        // Given
+        long now = System.nanoTime();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int j = 0; j < 1000; j++) {
+                    limiter.update(4, THRESHOLD_NANOS + 1, false, now);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        // Then
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+}
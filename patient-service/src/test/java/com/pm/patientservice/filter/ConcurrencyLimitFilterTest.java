@@ -0,0 +1,111 @@
+package com.pm.patientservice.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AimdConcurrencyLimiter readLimiter = limiter();
+    private final AimdConcurrencyLimiter writeLimiter = limiter();
+    private final AimdConcurrencyLimiter batchLimiter = limiter();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            readLimiter, writeLimiter, batchLimiter, Duration.ofSeconds(2), meterRegistry);
+
+    @Test
+    void testDoFilter_ReadLimitReached_RejectsWithRetryAfter() throws Exception {
+        // Given
+        readLimiter.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/patients"), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(response.getContentAsString()).contains("\"message\"");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(meterRegistry.get("patient.concurrency.rejected")
+                .tag("type", "read").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testDoFilter_ReadLimitReached_WritesStillPass() throws Exception {
+        // Given
+        readLimiter.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/patients"), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(writeLimiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void testDoFilter_Export_IsNotLimited() throws Exception {
+        // Given
+        readLimiter.tryAcquire();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/patients/export"),
+                new MockHttpServletResponse(), chain);
+
+        // Then
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void testDoFilter_WriteLimitReached_BatchUsesItsOwnLimit() throws Exception {
+        // Given
+        writeLimiter.tryAcquire();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/patients/batch"),
+                new MockHttpServletResponse(), chain);
+        batchLimiter.tryAcquire();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/patients/batch"),
+                rejected, new MockFilterChain());
+
+        // Then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(meterRegistry.get("patient.concurrency.rejected")
+                .tag("type", "batch").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testDoFilter_PathOnlySharingPrefix_IsNotLimited() throws Exception {
+        // Given
+        writeLimiter.tryAcquire();
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/patientsX"),
+                new MockHttpServletResponse(), chain);
+
+        // Then
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(meterRegistry.get("patient.concurrency.rejected")
+                .tag("type", "write").counter().count()).isZero();
+    }
+
+    private static AimdConcurrencyLimiter limiter() {
+        return new AimdConcurrencyLimiter(1, 1, 1, Duration.ofSeconds(1), 0.9);
+    }
+}
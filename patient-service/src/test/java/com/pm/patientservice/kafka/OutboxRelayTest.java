@@ -0,0 +1,137 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaProducer kafkaProducer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaProducer,
+                new TransactionTemplate(transactionManager), 100,
+                1000, Duration.ofHours(24), meterRegistry);
+    }
+
+    @Test
+    void testRelay_AllSendsAcked_MarksEveryEventPublished() {
+        // Given
+        OutboxEvent first = event();
+        OutboxEvent second = event();
+        when(outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAsc(Limit.of(100)))
+                .thenReturn(List.of(first, second));
+        when(kafkaProducer.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        verify(kafkaProducer).send("patient", first.getAggregateId(), first.getPayload());
+        verify(kafkaProducer).send("patient", second.getAggregateId(), second.getPayload());
+        verify(kafkaProducer).flush();
+        verify(outboxEventRepository).markPublished(
+                eq(List.of(first.getId(), second.getId())), any(Instant.class));
+        assertThat(meterRegistry.get("patient.outbox.ack").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testRelay_SendFails_MarksOnlyEventsBeforeTheFailure() {
+        // Given
+        OutboxEvent first = event();
+        OutboxEvent second = event();
+        OutboxEvent third = event();
+        when(outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAsc(Limit.of(100)))
+                .thenReturn(List.of(first, second, third));
+        when(kafkaProducer.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        ArgumentCaptor<Collection<UUID>> delivered = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markPublished(delivered.capture(), any(Instant.class));
+        assertThat(delivered.getValue()).containsExactly(first.getId());
+        assertThat(meterRegistry.get("patient.outbox.publish.failures")
+                .tag("cause", "RuntimeException").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testRelay_NoPendingEvents_DoesNotTouchKafka() {
+        // Given
+        when(outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAsc(Limit.of(100)))
+                .thenReturn(List.of());
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        verifyNoInteractions(kafkaProducer);
+        verify(outboxEventRepository, never()).markPublished(any(), any());
+    }
+
+    @Test
+    void testRelay_AnotherRelayHoldsOldestEvents_SkipsRound() {
+        // Given
+        when(outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAsc(Limit.of(100)))
+                .thenThrow(new CannotAcquireLockException("could not obtain lock"));
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        verifyNoInteractions(kafkaProducer);
+        verify(transactionManager).rollback(any());
+    }
+
+    private OutboxEvent event() {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(UUID.randomUUID());
+        event.setTopic("patient");
+        event.setAggregateId(UUID.randomUUID().toString());
+        event.setEventType("PATIENT_CREATED");
+        event.setPayload(new byte[]{1, 2, 3});
+        event.setCreatedAt(Instant.now());
+        return event;
+    }
+}
@@ -0,0 +1,85 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import com.pm.patientservice.service.PatientDuplicateDetector;
+import com.pm.patientservice.service.PatientSearchIndex;
+import com.pm.patientservice.service.PatientVersionStamp;
+import com.pm.patientservice.service.RecentPatientWrites;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientEventOutboxTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PatientVersionStamp patientVersionStamp;
+
+    @Mock
+    private RecentPatientWrites recentPatientWrites;
+
+    @Mock
+    private PatientSearchIndex patientSearchIndex;
+
+    @Mock
+    private PatientDuplicateDetector patientDuplicateDetector;
+
+    private PatientEventOutbox patientEventOutbox;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patientEventOutbox = new PatientEventOutbox(outboxEventRepository,
+                patientVersionStamp, recentPatientWrites, patientSearchIndex,
+                patientDuplicateDetector);
+        patient = new Patient();
+        patient.setId(UUID.randomUUID());
+        patient.setName("John Doe");
+        patient.setEmail("john.doe@example.com");
+        patient.setVersion(3L);
+    }
+
+    @Test
+    void testEnqueue_PatientChange_GoesToPatientTopic() {
+        // When
+        patientEventOutbox.enqueue(patient, "PATIENT_UPDATED");
+
+        // Then
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(saved.capture());
+        assertThat(saved.getValue().getTopic()).isEqualTo("patient");
+        assertThat(saved.getValue().getAggregateId()).isEqualTo(patient.getId().toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEnqueueAll_BillingUpdated_GoesToBillingTopicWithoutReindexing() {
+        // When
+        patientEventOutbox.enqueueAll(List.of(patient),
+                PatientEventOutbox.PATIENT_BILLING_UPDATED);
+
+        // Then
+        ArgumentCaptor<List<OutboxEvent>> saved = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement()
+                .extracting(OutboxEvent::getTopic).isEqualTo("patient-billing");
+        verify(patientSearchIndex, never()).index(any());
+        verify(patientDuplicateDetector, never()).index(any());
+    }
+}
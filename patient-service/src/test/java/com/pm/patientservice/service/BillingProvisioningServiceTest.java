@@ -0,0 +1,202 @@
+package com.pm.patientservice.service;
+
+import billing.BillingBatchResponse;
+import billing.BillingResponse;
+import com.pm.patientservice.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.kafka.PatientEventOutbox;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BillingProvisioningServiceTest {
+
+    @Mock
+    private BillingServiceGrpcClient billingServiceGrpcClient;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PatientEventOutbox patientEventOutbox;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    private Patient patient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        patient = new Patient();
+        patient.setId(UUID.randomUUID());
+        patient.setName("John Doe");
+        patient.setEmail("john.doe@example.com");
+    }
+
+    @Test
+    void testProvision_AsyncMode_RecordsOutcomeWithoutBlocking() {
+        // Given
+        CompletableFuture<BillingResponse> pending = new CompletableFuture<>();
+        when(billingServiceGrpcClient.createBillingAccountAsync(anyString(), anyString(), anyString()))
+                .thenReturn(pending);
+        BillingProvisioningService service = service("async");
+
+        // When
+        service.provision(patient);
+
+        // Then
+        verify(patientRepository, never()).updateBillingStatus(any(), any(), any());
+
+        pending.complete(BillingResponse.getDefaultInstance());
+        verify(patientRepository).updateBillingStatus(eq(List.of(patient.getId())),
+                eq(BillingStatus.PROVISIONED), any(Instant.class));
+    }
+
+    @Test
+    void testProvision_AsyncModeCallFails_MarksFailed() {
+        // Given
+        when(billingServiceGrpcClient.createBillingAccountAsync(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(
+                        new StatusRuntimeException(Status.DEADLINE_EXCEEDED)));
+
+        // When
+        service("async").provision(patient);
+
+        // Then
+        verify(patientRepository).updateBillingStatus(eq(List.of(patient.getId())),
+                eq(BillingStatus.FAILED), any(Instant.class));
+        assertThat(meterRegistry.get("billing.provisioning.failures")
+                .tag("cause", "DEADLINE_EXCEEDED").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testProvision_SyncModeCallFails_MarksFailedAndRethrows() {
+        // Given
+        when(billingServiceGrpcClient.createBillingAccount(anyString(), anyString(), anyString()))
+                .thenThrow(new StatusRuntimeException(Status.UNAVAILABLE));
+
+        // When & Then
+        assertThatThrownBy(() -> service("sync").provision(patient))
+                .isInstanceOf(StatusRuntimeException.class);
+        assertThat(patient.getBillingStatus()).isEqualTo(BillingStatus.FAILED);
+    }
+
+    @Test
+    void testReconcile_RetriesStalePatientsInBulk() {
+        // Given
+        when(patientRepository.findByBillingStatusInAndBillingUpdatedAtBefore(
+                any(), any(Instant.class), eq(Limit.of(200))))
+                .thenReturn(List.of(patient));
+        when(billingServiceGrpcClient.createBillingAccounts(List.of(patient)))
+                .thenReturn(BillingBatchResponse.getDefaultInstance());
+
+        // When
+        service("async").reconcile();
+
+        // Then
+        verify(patientRepository).updateBillingStatus(eq(List.of(patient.getId())),
+                eq(BillingStatus.PROVISIONED), any(Instant.class));
+        assertThat(patient.getBillingStatus()).isEqualTo(BillingStatus.PENDING);
+    }
+
+    @Test
+    void testProvision_SyncMode_PublishesBillingUpdateAndEvictsPatientAfterCommit() {
+        // Given
+        when(patientRepository.findAllById(List.of(patient.getId()))).thenReturn(List.of(patient));
+
+        // When
+        service("sync").provision(patient);
+
+        // Then
+        InOrder inOrder = inOrder(patientRepository, patientEventOutbox, transactionManager,
+                secondLevelCache);
+        inOrder.verify(patientRepository).updateBillingStatus(eq(List.of(patient.getId())),
+                eq(BillingStatus.PROVISIONED), any(Instant.class));
+        inOrder.verify(patientEventOutbox).enqueueAll(List.of(patient),
+                PatientEventOutbox.PATIENT_BILLING_UPDATED);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(secondLevelCache).evictEntityData(Patient.class, patient.getId());
+        verify(secondLevelCache, never()).evictEntityData(Patient.class);
+        assertThat(patient.getBillingStatus()).isEqualTo(BillingStatus.PROVISIONED);
+    }
+
+    @Test
+    void testReconcile_ClaimsRowsAndCommitsBeforeCallingBilling() {
+        // Given
+        when(patientRepository.findByBillingStatusInAndBillingUpdatedAtBefore(
+                any(), any(Instant.class), eq(Limit.of(200))))
+                .thenReturn(List.of(patient));
+        when(billingServiceGrpcClient.createBillingAccounts(List.of(patient)))
+                .thenThrow(new StatusRuntimeException(Status.DEADLINE_EXCEEDED));
+
+        // When
+        service("async").reconcile();
+
+        // Then: no transaction is open during the call
+        InOrder inOrder = inOrder(patientRepository, transactionManager, billingServiceGrpcClient);
+        inOrder.verify(patientRepository).claimBillingRetry(eq(List.of(patient.getId())), any(Instant.class));
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(billingServiceGrpcClient).createBillingAccounts(List.of(patient));
+        inOrder.verify(patientRepository).updateBillingStatus(eq(List.of(patient.getId())),
+                eq(BillingStatus.FAILED), any(Instant.class));
+    }
+
+    @Test
+    void testReconcile_NothingDue_ClaimsNothing() {
+        // When
+        service("async").reconcile();
+
+        // Then
+        verify(patientRepository, never()).claimBillingRetry(any(), any());
+        verifyNoInteractions(billingServiceGrpcClient);
+    }
+
+    private BillingProvisioningService service(String mode) {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(secondLevelCache);
+        return new BillingProvisioningService(billingServiceGrpcClient,
+                patientRepository, Runnable::run, new PatientResponseCache(new ConcurrentMapCacheManager()),
+                entityManagerFactory, patientEventOutbox, new TransactionTemplate(transactionManager),
+                mode, Duration.ofMinutes(1), 200, meterRegistry);
+    }
+}
@@ -0,0 +1,149 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.EmailAlreadyExistsException;
+import com.pm.patientservice.exception.IdempotentRequestInProgressException;
+import com.pm.patientservice.exception.InvalidIdempotencyKeyException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyKeyStoreTest {
+
+    private final IdempotencyKeyStore store = new IdempotencyKeyStore(100, Duration.ofMinutes(1),
+            Duration.ofSeconds(5));
+
+    @Test
+    void testExecute_SameKey_RunsActionOnceAndReplays() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        PatientResponseDTO response = new PatientResponseDTO();
+
+        // When
+        IdempotencyKeyStore.Result first = store.execute("key", request("a@example.com"), () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        IdempotencyKeyStore.Result retry = store.execute("key", request("a@example.com"), () -> {
+            calls.incrementAndGet();
+            return new PatientResponseDTO();
+        });
+
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.response()).isSameAs(response);
+    }
+
+    @Test
+    void testExecute_FailedAction_IsNotRemembered() {
+        // Given
+        assertThatThrownBy(() -> store.execute("key", request("a@example.com"), () -> {
+            throw new EmailAlreadyExistsException("taken");
+        })).isInstanceOf(EmailAlreadyExistsException.class);
+
+        // When
+        IdempotencyKeyStore.Result retry = store.execute("key", request("a@example.com"),
+                PatientResponseDTO::new);
+
+        // Then
+        assertThat(retry.replayed()).isFalse();
+    }
+
+    @Test
+    void testExecute_ConcurrentRetry_WaitsForOriginal() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PatientResponseDTO response = new PatientResponseDTO();
+        CompletableFuture<IdempotencyKeyStore.Result> original = CompletableFuture.supplyAsync(() ->
+                store.execute("key", request("a@example.com"), () -> {
+                    started.countDown();
+                    await(release);
+                    return response;
+                }));
+        started.await();
+
+        // When
+        CompletableFuture<IdempotencyKeyStore.Result> retry = CompletableFuture.supplyAsync(() ->
+                store.execute("key", request("a@example.com"), PatientResponseDTO::new));
+        release.countDown();
+
+        // Then
+        assertThat(original.get().replayed()).isFalse();
+        assertThat(retry.get().replayed()).isTrue();
+        assertThat(retry.get().response()).isSameAs(response);
+    }
+
+    @Test
+    void testExecute_OriginalStillRunningPastWait_ThrowsInProgressAndKeepsOriginal() throws Exception {
+        // Given
+        IdempotencyKeyStore impatientStore = new IdempotencyKeyStore(100, Duration.ofMinutes(1),
+                Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PatientResponseDTO response = new PatientResponseDTO();
+        CompletableFuture<IdempotencyKeyStore.Result> original = CompletableFuture.supplyAsync(() ->
+                impatientStore.execute("key", request("a@example.com"), () -> {
+                    started.countDown();
+                    await(release);
+                    return response;
+                }));
+        started.await();
+
+        // When & Then
+        assertThatThrownBy(() -> impatientStore.execute("key", request("a@example.com"),
+                PatientResponseDTO::new))
+                .isInstanceOf(IdempotentRequestInProgressException.class)
+                .extracting(e -> ((IdempotentRequestInProgressException) e).getRetryAfter())
+                .isEqualTo(Duration.ofMillis(50));
+        release.countDown();
+        assertThat(original.get().response()).isSameAs(response);
+        assertThat(impatientStore.execute("key", request("a@example.com"), PatientResponseDTO::new)
+                .response()).isSameAs(response);
+    }
+
+    @Test
+    void testExecute_KeyReusedForDifferentRequest_ThrowsInvalidIdempotencyKeyException() {
+        // Given
+        store.execute("key", request("a@example.com"), PatientResponseDTO::new);
+
+        // When & Then
+        assertThatThrownBy(() -> store.execute("key", request("b@example.com"), PatientResponseDTO::new))
+                .isInstanceOf(InvalidIdempotencyKeyException.class);
+    }
+
+    @Test
+    void testExecute_OverlongKey_ThrowsInvalidIdempotencyKeyException() {
+        // When & Then
+        assertThatThrownBy(() -> store.execute("k".repeat(256), request("a@example.com"),
+                PatientResponseDTO::new))
+                .isInstanceOf(InvalidIdempotencyKeyException.class);
+    }
+
+    private PatientRequestDTO request(String email) {
+        PatientRequestDTO request = new PatientRequestDTO();
+        request.setName("John Doe");
+        request.setEmail(email);
+        request.setAddress("123 Main St");
+        request.setDateOfBirth("1990-01-01");
+        request.setRegisteredDate("2025-05-31");
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
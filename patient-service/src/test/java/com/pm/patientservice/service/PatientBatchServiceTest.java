@@ -0,0 +1,227 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientBatchItemResultDTO;
+import com.pm.patientservice.dto.PatientBatchResponseDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.exception.BatchSizeExceededException;
+import com.pm.patientservice.kafka.PatientEventOutbox;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientBatchServiceTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private BillingProvisioningService billingProvisioningService;
+
+    @Mock
+    private PatientEventOutbox patientEventOutbox;
+
+    @Mock
+    private PatientStatistics patientStatistics;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PatientBatchService patientBatchService;
+
+    @BeforeEach
+    void setUp() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        patientBatchService = new PatientBatchService(patientRepository,
+                billingProvisioningService, patientEventOutbox, patientStatistics,
+                new TransactionTemplate(transactionManager), validator, 3);
+    }
+
+    @Test
+    void testCreatePatients_MixedBatch_ReportsEachItem() {
+        // Given
+        PatientRequestDTO valid = request("John Doe", "john@example.com");
+        PatientRequestDTO invalid = request("", "not-an-email");
+        PatientRequestDTO existing = request("Jane Doe", "jane@example.com");
+        when(patientRepository.findExistingEmails(anyCollection()))
+                .thenReturn(Set.of("jane@example.com"));
+        when(patientRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<Patient> patients = invocation.getArgument(0);
+            patients.forEach(patient -> patient.setId(UUID.randomUUID()));
+            return List.copyOf((Collection<Patient>) patients);
+        });
+
+        // When
+        PatientBatchResponseDTO response = patientBatchService.createPatients(
+                List.of(valid, invalid, existing));
+
+        // Then
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo("CREATED");
+        assertThat(response.getResults().get(0).getPatient().getEmail())
+                .isEqualTo("john@example.com");
+        assertThat(response.getResults().get(1).getErrors())
+                .containsKeys("name", "email");
+        assertThat(response.getResults().get(2).getErrors())
+                .containsEntry("message", "Email address already exists");
+
+        verify(patientRepository, times(1)).findExistingEmails(anyCollection());
+        verify(billingProvisioningService).provisionAll(anyList());
+        verify(patientEventOutbox).enqueueAll(anyList(), eq("PATIENT_CREATED"));
+    }
+
+    @Test
+    void testCreatePatients_DuplicateEmailWithinBatch_KeepsFirstOnly() {
+        // Given
+        when(patientRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+        when(patientRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<Patient> patients = invocation.getArgument(0);
+            patients.forEach(patient -> patient.setId(UUID.randomUUID()));
+            return List.copyOf((Collection<Patient>) patients);
+        });
+
+        // When
+        PatientBatchResponseDTO response = patientBatchService.createPatients(List.of(
+                request("John Doe", "john@example.com"),
+                request("John Again", "john@example.com")));
+
+        // Then
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getResults().get(1).getStatus()).isEqualTo("FAILED");
+
+        ArgumentCaptor<List<Patient>> saved = ArgumentCaptor.forClass(List.class);
+        verify(patientEventOutbox).enqueueAll(saved.capture(), eq("PATIENT_CREATED"));
+        assertThat(saved.getValue()).hasSize(1);
+    }
+
+    @Test
+    void testCreatePatients_EmailRegisteredConcurrently_FailsOnlyThatItem() {
+        // Given: the email was free at the check but is taken at insert
+        when(patientRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+        when(patientRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Patient> patients = List.copyOf((Collection<Patient>) invocation.getArgument(0));
+            if (patients.stream().anyMatch(patient -> patient.getEmail().equals("jane@example.com"))) {
+                throw new DataIntegrityViolationException("duplicate key",
+                        new ConstraintViolationException("duplicate key",
+                                new SQLException("duplicate key"), "uk_patient_email"));
+            }
+            patients.forEach(patient -> patient.setId(UUID.randomUUID()));
+            return patients;
+        });
+
+        // When
+        PatientBatchResponseDTO response = patientBatchService.createPatients(List.of(
+                request("John Doe", "john@example.com"),
+                request("Jane Doe", "jane@example.com"),
+                request("Jim Doe", "jim@example.com")));
+
+        // Then
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getResults()).extracting(PatientBatchItemResultDTO::getStatus)
+                .containsExactly("CREATED", "FAILED", "CREATED");
+        assertThat(response.getResults().get(1).getErrors())
+                .containsEntry("message", "Email address already exists");
+        assertThat(response.getResults().get(2).getPatient().getId()).isNotNull();
+
+        ArgumentCaptor<List<Patient>> provisioned = ArgumentCaptor.forClass(List.class);
+        verify(billingProvisioningService).provisionAll(provisioned.capture());
+        assertThat(provisioned.getValue()).extracting(Patient::getEmail)
+                .containsExactly("john@example.com", "jim@example.com");
+    }
+
+    @Test
+    void testCreatePatients_OtherConstraintViolated_Rethrows() {
+        // Given
+        when(patientRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+        when(patientRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException(
+                "duplicate key", new ConstraintViolationException("duplicate key",
+                        new SQLException("duplicate key"), "patient_pkey")));
+
+        // When & Then
+        assertThatThrownBy(() -> patientBatchService.createPatients(
+                List.of(request("John Doe", "john@example.com"))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verifyNoInteractions(billingProvisioningService);
+    }
+
+    @Test
+    void testCreatePatients_AllInvalid_SkipsInsertBillingAndEvents() {
+        // When
+        PatientBatchResponseDTO response = patientBatchService.createPatients(
+                List.of(request(null, "john@example.com")));
+
+        // Then
+        assertThat(response.getFailed()).isEqualTo(1);
+        verify(patientRepository, never()).saveAll(any());
+        verifyNoInteractions(billingProvisioningService, patientEventOutbox);
+    }
+
+    @Test
+    void testCreatePatients_NullItem_FailsOnlyThatItem() {
+        // Given
+        when(patientRepository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+        when(patientRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<Patient> patients = invocation.getArgument(0);
+            patients.forEach(patient -> patient.setId(UUID.randomUUID()));
+            return List.copyOf((Collection<Patient>) patients);
+        });
+
+        // When
+        PatientBatchResponseDTO response = patientBatchService.createPatients(
+                Arrays.asList(request("John Doe", "john@example.com"), null));
+
+        // Then
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getResults().get(1).getStatus()).isEqualTo("FAILED");
+        assertThat(response.getResults().get(1).getErrors())
+                .containsEntry("message", "Patient is required");
+    }
+
+    @Test
+    void testCreatePatients_TooManyItems_ThrowsBatchSizeExceededException() {
+        // Given
+        List<PatientRequestDTO> requests = List.of(request("A", "a@example.com"),
+                request("B", "b@example.com"), request("C", "c@example.com"),
+                request("D", "d@example.com"));
+
+        // When & Then
+        assertThatThrownBy(() -> patientBatchService.createPatients(requests))
+                .isInstanceOf(BatchSizeExceededException.class);
+        verifyNoInteractions(patientRepository);
+    }
+
+    private PatientRequestDTO request(String name, String email) {
+        PatientRequestDTO request = new PatientRequestDTO();
+        request.setName(name);
+        request.setEmail(email);
+        request.setAddress("123 Main St");
+        request.setDateOfBirth("1990-01-01");
+        request.setRegisteredDate("2025-05-31");
+        return request;
+    }
+}
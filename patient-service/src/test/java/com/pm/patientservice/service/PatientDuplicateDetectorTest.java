@@ -0,0 +1,262 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.DuplicateCandidateDTO;
+import com.pm.patientservice.exception.PatientNotFoundException;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
+import com.pm.patientservice.repository.PatientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PatientDuplicateDetectorTest {
+
+    private static final LocalDate BORN = LocalDate.of(1985, 3, 14);
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PatientDuplicateDetector detector;
+
+    private final UUID johnId = UUID.randomUUID();
+    private final UUID jonId = UUID.randomUUID();
+    private final UUID janeId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        detector = detector(500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        detector.close();
+    }
+
+    @Test
+    void testIndex_SamePersonWithAnotherEmail_IsCandidateBothWays() {
+        // Given: outside a transaction changes are applied straight away
+        detector.index(List.of(patient(johnId, "John Smith", "john.smith@example.com", BORN)));
+
+        // When
+        detector.index(List.of(patient(jonId, "Smith, Jon", "jsmith@mail.example", BORN)));
+
+        // Then
+        assertThat(detector.candidatesOf(jonId)).extracting(DuplicateCandidateDTO::getCandidateId)
+                .containsExactly(johnId.toString());
+        assertThat(detector.candidatesOf(johnId)).extracting(DuplicateCandidateDTO::getCandidateId)
+                .containsExactly(jonId.toString());
+        assertThat(meterRegistry.get("patient.duplicates.detected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testIndex_MistypedDateOfBirth_StillFoundThroughPhoneticBlock() {
+        // Given
+        detector.index(List.of(patient(johnId, "José Álvarez", "jalvarez@example.com",
+                LocalDate.of(1985, 3, 4))));
+
+        // When: day and month swapped, accents dropped
+        detector.index(List.of(patient(jonId, "Jose Alvarez", "jose.alvarez@example.com",
+                LocalDate.of(1985, 4, 3))));
+
+        // Then
+        assertThat(detector.candidatesOf(jonId)).hasSize(1);
+    }
+
+    @Test
+    void testIndex_DifferentPersonsInSameBlock_NotCandidates() {
+        // Given: same phonetic codes and birth date, different first name
+        detector.index(List.of(patient(johnId, "John Smith", "john.smith@example.com", BORN)));
+
+        when(patientRepository.existsById(janeId)).thenReturn(true);
+
+        // When
+        detector.index(List.of(patient(janeId, "Jane Smith", "jane.smith@example.com", BORN)));
+
+        // Then
+        assertThat(detector.candidatesOf(janeId)).isEmpty();
+    }
+
+    @Test
+    void testIndex_UpdatedPatient_LosesCandidatesItNoLongerMatches() {
+        // Given
+        detector.index(List.of(
+                patient(johnId, "John Smith", "john.smith@example.com", BORN),
+                patient(jonId, "Jon Smith", "jsmith@mail.example", BORN)));
+        when(patientRepository.existsById(johnId)).thenReturn(true);
+        when(patientRepository.existsById(jonId)).thenReturn(true);
+
+        // When
+        detector.index(List.of(patient(jonId, "Jon Smith", "jsmith@mail.example", BORN.minusYears(30))));
+
+        // Then
+        assertThat(detector.candidatesOf(johnId)).isEmpty();
+        assertThat(detector.candidatesOf(jonId)).isEmpty();
+    }
+
+    @Test
+    void testIndex_PatientUpdatedAgain_KeepsOnePairWithLatestScore() {
+        // Given
+        detector.index(List.of(
+                patient(johnId, "John Smith", "john.smith@example.com", BORN),
+                patient(jonId, "Jon Smith", "jsmith@mail.example", BORN)));
+        double before = detector.topCandidates(10).get(0).getScore();
+
+        // When: a closer email raises the score of the same pair
+        detector.index(List.of(patient(jonId, "Jon Smith", "john.smith@mail.example", BORN)));
+
+        // Then
+        assertThat(detector.topCandidates(10)).hasSize(1);
+        assertThat(detector.topCandidates(10).get(0).getScore()).isGreaterThan(before);
+        assertThat(detector.candidatesOf(johnId)).extracting(DuplicateCandidateDTO::getScore)
+                .containsExactly(detector.topCandidates(10).get(0).getScore());
+    }
+
+    @Test
+    void testRemove_DropsPatientFromOthersCandidates() {
+        // Given
+        detector.index(List.of(
+                patient(johnId, "John Smith", "john.smith@example.com", BORN),
+                patient(jonId, "Jon Smith", "jsmith@mail.example", BORN)));
+        List<DuplicateCandidateDTO> before = detector.topCandidates(10);
+        when(patientRepository.existsById(johnId)).thenReturn(true);
+
+        // When
+        detector.remove(jonId);
+
+        // Then: a list already handed out is a snapshot and stays as it was
+        assertThat(detector.candidatesOf(johnId)).isEmpty();
+        assertThat(detector.topCandidates(10)).isEmpty();
+        assertThat(before).hasSize(1);
+    }
+
+    @Test
+    void testReindex_ChangesFromOtherInstance_AreScoredAndDeletionsDropped() {
+        // Given
+        detector.index(List.of(patient(johnId, "John Smith", "john.smith@example.com", BORN)));
+        when(patientRepository.findViewsByIdIn(List.of(jonId)))
+                .thenReturn(List.of(view(jonId, "Jon Smith", "jsmith@mail.example")));
+
+        // When
+        detector.reindex(List.of(jonId));
+
+        // Then
+        assertThat(detector.candidatesOf(johnId)).extracting(DuplicateCandidateDTO::getCandidateId)
+                .containsExactly(jonId.toString());
+        when(patientRepository.findViewsByIdIn(List.of(jonId))).thenReturn(List.of());
+        when(patientRepository.existsById(johnId)).thenReturn(true);
+        detector.reindex(List.of(jonId));
+        assertThat(detector.candidatesOf(johnId)).isEmpty();
+        assertThat(meterRegistry.get("patient.duplicates.detected").counter().count()).isZero();
+    }
+
+    @Test
+    void testCandidatesOf_UnknownPatient_ThrowsPatientNotFoundException() {
+        // Given
+        when(patientRepository.existsById(janeId)).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> detector.candidatesOf(janeId))
+                .isInstanceOf(PatientNotFoundException.class);
+    }
+
+    @Test
+    void testTopCandidates_LimitBelowPairCount_ReturnsHighestScores() {
+        // Given
+        detector.index(List.of(
+                patient(johnId, "John Smith", "john.smith@example.com", BORN),
+                patient(jonId, "Jon Smith", "jsmith@mail.example", BORN),
+                patient(janeId, "John Smith", "johnsmith@other.example", BORN)));
+
+        // When
+        List<DuplicateCandidateDTO> top = detector.topCandidates(1);
+
+        // Then
+        assertThat(top).hasSize(1);
+        assertThat(top.get(0).getScore()).isEqualTo(detector.topCandidates(10).get(0).getScore());
+        assertThat(detector.topCandidates(0)).isEmpty();
+    }
+
+    @Test
+    void testScan_BlockOverMaxSize_IsNotScored() {
+        // Given
+        detector.close();
+        detector = detector(2);
+        when(patientRepository.streamAllBy()).thenReturn(Stream.of(
+                view(johnId, "John Smith", "first@example.com"),
+                view(jonId, "John Smith", "second@example.com"),
+                view(janeId, "John Smith", "third@example.com")));
+
+        // When: the name and phonetic blocks overflow; the email blocks differ
+        detector.scan();
+
+        // Then
+        assertThat(detector.topCandidates(10)).isEmpty();
+    }
+
+    @Test
+    void testScan_ReplacesIndexWithTableContentsAndListsEachPairOnce() {
+        // Given
+        detector.index(List.of(
+                patient(johnId, "John Smith", "john.smith@example.com", BORN),
+                patient(jonId, "Jon Smith", "jsmith@mail.example", BORN)));
+        UUID annId = UUID.randomUUID();
+        UUID anneId = UUID.randomUUID();
+        when(patientRepository.streamAllBy()).thenReturn(Stream.of(
+                view(janeId, "Jane Doe", "jane.doe@example.com"),
+                view(annId, "Ann Baker", "ann.baker@example.com"),
+                view(anneId, "Anne Baker", "annbaker@other.example")));
+        when(patientRepository.existsById(johnId)).thenReturn(true);
+
+        // When
+        detector.scan();
+        List<DuplicateCandidateDTO> top = detector.topCandidates(10);
+
+        // Then
+        assertThat(detector.candidatesOf(johnId)).isEmpty();
+        assertThat(top).hasSize(1);
+        assertThat(List.of(top.get(0).getPatientId(), top.get(0).getCandidateId()))
+                .containsExactlyInAnyOrder(annId.toString(), anneId.toString());
+        assertThat(top.get(0).getScore()).isBetween(0.85, 1.0);
+    }
+
+    private PatientDuplicateDetector detector(int maxBlockSize) {
+        return new PatientDuplicateDetector(patientRepository, new RecentPatientWrites(Duration.ZERO),
+                new TransactionTemplate(transactionManager), meterRegistry, 0.85, maxBlockSize, 100);
+    }
+
+    private static Patient patient(UUID id, String name, String email, LocalDate dateOfBirth) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setName(name);
+        patient.setEmail(email);
+        patient.setDateOfBirth(dateOfBirth);
+        return patient;
+    }
+
+    private static PatientView view(UUID id, String name, String email) {
+        return new PatientView(id, name, email, "1 Test Road", BORN, null, 0L);
+    }
+}
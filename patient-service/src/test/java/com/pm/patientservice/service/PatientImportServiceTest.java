@@ -0,0 +1,166 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientImportResponseDTO;
+import com.pm.patientservice.dto.PatientImportRowErrorDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.exception.InvalidImportFileException;
+import com.pm.patientservice.kafka.OutboxRelay;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import com.pm.patientservice.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+// Chunks of two rows, so one file spans several chunks and validation threads
+@SpringBootTest(properties = {
+        "patient.cache.invalidation.enabled=false",
+        "grpc.server.port=-1",
+        "patient.import.chunk-size=2",
+        "patient.import.validation-threads=2"
+})
+@DirtiesContext
+class PatientImportServiceTest {
+
+    private static final String HEADER = "name,email,address,dateOfBirth,registeredDate\n";
+
+    // Deleted after the class, once @DirtiesContext has closed the index
+    @TempDir
+    static Path searchIndexDir;
+
+    @DynamicPropertySource
+    static void searchIndexProperties(DynamicPropertyRegistry registry) {
+        registry.add("patient.search.index-dir",
+                () -> searchIndexDir.resolve("index").toString());
+    }
+
+    @Autowired
+    private PatientImportService patientImportService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockBean
+    private BillingProvisioningService billingProvisioningService;
+
+    @MockBean
+    private OutboxRelay outboxRelay;
+
+    @Test
+    void testImportPatients_ReportsInvalidRowsAndDuplicateEmails() {
+        // Given
+        patientService.createPatient(request("import-taken@example.com"));
+        long outboxEventsBefore = outboxEventRepository.count();
+        String csv = HEADER
+                + "Ada Lovelace,import-ada@example.com,\"12 Square, London\",1815-12-10,2024-11-28\n"
+                + "No Email,,1 Road,1990-01-01,2024-11-28\n"
+                + "Alan Turing,import-alan@example.com,Wilmslow,1912-06-23,2024-11-28\n"
+                + "Ada Again,import-ada@example.com,London,1815-12-10,2024-11-28\n"
+                + "Taken,import-taken@example.com,1 Road,1990-01-01,2024-11-28\n"
+                + "Bad Date,import-date@example.com,1 Road,10/12/1990,2024-11-28\n";
+
+        // When
+        PatientImportResponseDTO response = patientImportService.importPatients(stream(csv));
+
+        // Then
+        assertThat(response.getRows()).isEqualTo(6);
+        assertThat(response.getImported()).isEqualTo(2);
+        assertThat(response.getInvalid()).isEqualTo(2);
+        assertThat(response.getDuplicates()).isEqualTo(2);
+        assertThat(response.getErrors()).extracting(PatientImportRowErrorDTO::getRow)
+                .containsExactly(2L, 4L, 5L, 6L);
+        assertThat(response.getErrors().get(0).getErrors()).containsKey("email");
+        assertThat(response.isErrorsTruncated()).isFalse();
+
+        assertThat(patientRepository.findExistingEmails(List.of(
+                "import-ada@example.com", "import-alan@example.com", "import-date@example.com")))
+                .containsExactlyInAnyOrder("import-ada@example.com", "import-alan@example.com");
+        assertThat(outboxEventRepository.count()).isEqualTo(outboxEventsBefore + 2);
+
+        ArgumentCaptor<List<Patient>> billed = ArgumentCaptor.captor();
+        verify(billingProvisioningService, atLeastOnce()).provisionAll(billed.capture());
+        assertThat(billed.getAllValues()).flatMap(patients -> patients)
+                .extracting(Patient::getEmail)
+                .containsExactlyInAnyOrder("import-ada@example.com", "import-alan@example.com");
+    }
+
+    @Test
+    void testImportPatients_ImportedPatientsAreReadable() {
+        // Given
+        String csv = HEADER + "Grace Hopper,import-grace@example.com,Arlington,1906-12-09,2024-11-28\n";
+
+        // When
+        patientImportService.importPatients(stream(csv));
+
+        // Then
+        Patient grace = patientRepository.findAll().stream()
+                .filter(patient -> patient.getEmail().equals("import-grace@example.com"))
+                .findFirst().orElseThrow();
+        assertThat(patientService.getPatient(grace.getId()).getBillingStatus()).isEqualTo("PENDING");
+        assertThat(grace.getVersion()).isZero();
+    }
+
+    @Test
+    void testImportPatients_MissingColumn_ThrowsInvalidImportFileException() {
+        // When & Then
+        assertThatThrownBy(() -> patientImportService.importPatients(
+                stream("name,email,address\nA,a@example.com,Road\n")))
+                .isInstanceOf(InvalidImportFileException.class)
+                .hasMessageContaining("registeredDate");
+    }
+
+    @Test
+    void testImportPatients_MalformedRow_KeepsRowsBeforeItAndReportsRow() {
+        // Given
+        String csv = HEADER
+                + "Linus Pauling,import-linus@example.com,Portland,1901-02-28,2024-11-28\n"
+                + "\"Unterminated,import-broken@example.com,Road,1901-02-28,2024-11-28\n";
+
+        // When
+        PatientImportResponseDTO response = patientImportService.importPatients(stream(csv));
+
+        // Then
+        assertThat(response.getImported()).isEqualTo(1);
+        assertThat(response.getMalformedAtRow()).isEqualTo(2);
+        assertThat(response.getError()).startsWith("Malformed CSV");
+        assertThat(patientRepository.findExistingEmails(List.of("import-linus@example.com")))
+                .containsExactly("import-linus@example.com");
+    }
+
+    private static InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PatientRequestDTO request(String email) {
+        PatientRequestDTO request = new PatientRequestDTO();
+        request.setName("John Doe");
+        request.setEmail(email);
+        request.setAddress("123 Main St");
+        request.setDateOfBirth("1990-01-01");
+        request.setRegisteredDate("2025-05-31");
+        return request;
+    }
+}
@@ -0,0 +1,75 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientResponseCacheTest {
+
+    private PatientResponseCache patientResponseCache;
+
+    private UUID id;
+
+    @BeforeEach
+    void setUp() {
+        patientResponseCache = new PatientResponseCache(new ConcurrentMapCacheManager());
+        id = UUID.randomUUID();
+    }
+
+    @Test
+    void testGet_SecondRead_ServedFromCache() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        patientResponseCache.get(id, () -> response(loads.incrementAndGet()));
+        PatientResponseDTO second = patientResponseCache.get(id, () -> response(loads.incrementAndGet()));
+
+        // Then
+        assertThat(loads).hasValue(1);
+        assertThat(second.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void testGet_ChangeCommittedWhileLoading_StaleResponseNotCached() {
+        // Given: the read loads version 1, then an update commits and evicts
+        PatientResponseDTO stale = patientResponseCache.get(id, () -> {
+            PatientResponseDTO loaded = response(1);
+            patientResponseCache.evict(id);
+            return loaded;
+        });
+
+        // When
+        PatientResponseDTO next = patientResponseCache.get(id, () -> response(2));
+
+        // Then: the stale read is answered but the next one loads the change
+        assertThat(stale.getVersion()).isEqualTo(1L);
+        assertThat(next.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void testEvict_CachedResponse_NextReadLoads() {
+        // Given
+        patientResponseCache.get(id, () -> response(1));
+
+        // When
+        patientResponseCache.evict(id);
+        PatientResponseDTO next = patientResponseCache.get(id, () -> response(2));
+
+        // Then
+        assertThat(next.getVersion()).isEqualTo(2L);
+    }
+
+    private PatientResponseDTO response(long version) {
+        PatientResponseDTO response = new PatientResponseDTO();
+        response.setId(id.toString());
+        response.setVersion(version);
+        return response;
+    }
+}
@@ -0,0 +1,208 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientView;
+import com.pm.patientservice.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PatientSearchIndexTest {
+
+    @TempDir
+    private Path indexDir;
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PatientSearchIndex patientSearchIndex;
+
+    private final UUID johnId = UUID.randomUUID();
+    private final UUID janeId = UUID.randomUUID();
+    private final UUID jonathanId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        patientSearchIndex = new PatientSearchIndex(patientRepository,
+                new TransactionTemplate(transactionManager), indexDir, 100, 2, true);
+        // Outside a transaction changes are applied straight away
+        patientSearchIndex.index(List.of(
+                patient(johnId, "John Smith", "john.smith@example.com", "12 High Street"),
+                patient(janeId, "Jane Doe", "jane.doe@example.com", "4 Mill Lane"),
+                patient(jonathanId, "Jonathan Smithers", "jsmithers@example.com", "9 Main Road")));
+        patientSearchIndex.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        patientSearchIndex.close();
+    }
+
+    @Test
+    void testSearch_Prefix_MatchesEveryPatientStartingWithIt() {
+        // When
+        List<UUID> ids = patientSearchIndex.search("jo", 10);
+
+        // Then
+        assertThat(ids).containsExactlyInAnyOrder(johnId, jonathanId);
+    }
+
+    @Test
+    void testSearch_Misspelling_MatchesFuzzily() {
+        // When
+        List<UUID> ids = patientSearchIndex.search("smiht", 10);
+
+        // Then
+        assertThat(ids).containsExactly(johnId);
+    }
+
+    @Test
+    void testSearch_ExactWord_RanksAbovePrefixMatch() {
+        // When
+        List<UUID> ids = patientSearchIndex.search("smith", 10);
+
+        // Then
+        assertThat(ids).containsExactly(johnId, jonathanId);
+    }
+
+    @Test
+    void testSearch_SeveralWords_MatchesOnlyPatientsWithAll() {
+        // When
+        List<UUID> ids = patientSearchIndex.search("jo high", 10);
+
+        // Then
+        assertThat(ids).containsExactly(johnId);
+    }
+
+    @Test
+    void testSearch_PartOfEmail_MatchesPatient() {
+        // When
+        List<UUID> ids = patientSearchIndex.search("doe", 10);
+
+        // Then
+        assertThat(ids).containsExactly(janeId);
+    }
+
+    @Test
+    void testSearch_Limit_ReturnsTopK() {
+        // When
+        List<UUID> ids = patientSearchIndex.search("example", 2);
+
+        // Then
+        assertThat(ids).hasSize(2);
+    }
+
+    @Test
+    void testSearch_BlankQuery_ReturnsNothing() {
+        // When & Then
+        assertThat(patientSearchIndex.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void testIndex_UpdatedPatient_ReplacesPreviousDocument() throws IOException {
+        // When
+        patientSearchIndex.index(List.of(
+                patient(janeId, "Jane Carter", "jane.doe@example.com", "4 Mill Lane")));
+        patientSearchIndex.refresh();
+
+        // Then
+        assertThat(patientSearchIndex.search("carter", 10)).containsExactly(janeId);
+        assertThat(patientSearchIndex.search("jane", 10)).containsExactly(janeId);
+    }
+
+    @Test
+    void testDelete_RemovesPatientFromResults() throws IOException {
+        // When
+        patientSearchIndex.delete(johnId);
+        patientSearchIndex.refresh();
+
+        // Then
+        assertThat(patientSearchIndex.search("smith", 10)).containsExactly(jonathanId);
+    }
+
+    @Test
+    void testReindex_PatientGoneFromTable_RemovesIt() throws IOException {
+        // Given
+        when(patientRepository.findViewsByIdIn(anyCollection()))
+                .thenReturn(List.of(view(janeId, "Jane Carter")));
+
+        // When
+        patientSearchIndex.reindex(List.of(janeId, johnId));
+        patientSearchIndex.refresh();
+
+        // Then
+        assertThat(patientSearchIndex.search("carter", 10)).containsExactly(janeId);
+        assertThat(patientSearchIndex.search("john", 10)).isEmpty();
+    }
+
+    @Test
+    void testRebuild_ReplacesIndexWithTableContents() {
+        // Given
+        when(patientRepository.streamAllBy()).thenReturn(Stream.of(
+                view(janeId, "Jane Doe"), view(UUID.randomUUID(), "Jake Doe")));
+
+        // When
+        patientSearchIndex.rebuild();
+
+        // Then
+        assertThat(patientSearchIndex.search("doe", 10)).hasSize(2).contains(janeId);
+        assertThat(patientSearchIndex.search("smith", 10)).isEmpty();
+    }
+
+    @Test
+    void testRebuild_TableScanFails_KeepsCurrentIndex() throws IOException {
+        // Given: the scan breaks off after the first row
+        when(patientRepository.streamAllBy()).thenReturn(Stream.concat(
+                Stream.of(view(UUID.randomUUID(), "Jake Doe")),
+                Stream.generate(() -> {
+                    throw new IllegalStateException("connection lost");
+                })));
+
+        // When
+        assertThatThrownBy(() -> patientSearchIndex.rebuild())
+                .isInstanceOf(IllegalStateException.class);
+        patientSearchIndex.refresh();
+        patientSearchIndex.commit();
+
+        // Then
+        assertThat(patientSearchIndex.search("jo", 10)).containsExactlyInAnyOrder(johnId, jonathanId);
+        assertThat(patientSearchIndex.search("doe", 10)).containsExactly(janeId);
+        assertThat(indexDir.resolveSibling(indexDir.getFileName() + "-rebuild")).doesNotExist();
+    }
+
+    private static Patient patient(UUID id, String name, String email, String address) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setName(name);
+        patient.setEmail(email);
+        patient.setAddress(address);
+        return patient;
+    }
+
+    private static PatientView view(UUID id, String name) {
+        return new PatientView(id, name, name.toLowerCase().replace(' ', '.') + "@example.com",
+                "1 Test Road", LocalDate.of(1990, 1, 1), null, 0L);
+    }
+}
@@ -0,0 +1,456 @@
+package com.pm.patientservice.service;
+
+import billing.BillingBatchResponse;
+import com.pm.patientservice.dto.DuplicateCandidateDTO;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientPatchRequestDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientStatisticsResponseDTO;
+import com.pm.patientservice.exception.EmailAlreadyExistsException;
+import com.pm.patientservice.exception.PatientNotFoundException;
+import com.pm.patientservice.exception.PatientVersionConflictException;
+import com.pm.patientservice.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.kafka.OutboxRelay;
+import com.pm.patientservice.kafka.PatientEventOutbox;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "patient.cache.invalidation.enabled=false",
+        "grpc.server.port=-1"
+})
+@DirtiesContext
+class PatientServiceTest {
+
+    // Deleted after the class, once @DirtiesContext has closed the index
+    @TempDir
+    static Path searchIndexDir;
+
+    @DynamicPropertySource
+    static void searchIndexProperties(DynamicPropertyRegistry registry) {
+        registry.add("patient.search.index-dir",
+                () -> searchIndexDir.resolve("index").toString());
+    }
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientStatistics patientStatistics;
+
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+
+    @Autowired
+    private PatientDuplicateDetector patientDuplicateDetector;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PatientResponseCache patientResponseCache;
+
+    @Autowired
+    private PatientEventOutbox patientEventOutbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private BillingProvisioningService billingProvisioningService;
+
+    // No broker in this test; the relay would otherwise block on the producer
+    @MockBean
+    private OutboxRelay outboxRelay;
+
+    @Test
+    void testCreatePatient_DuplicateEmail_ThrowsEmailAlreadyExistsException() {
+        // Given
+        patientService.createPatient(request("dup@example.com"));
+
+        // When & Then
+        assertThatThrownBy(() -> patientService.createPatient(request("dup@example.com")))
+                .isInstanceOf(EmailAlreadyExistsException.class);
+        assertThat(meterRegistry.get("patient.create.failures")
+                .tag("cause", "email_conflict").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testUpdatePatient_EmailTakenByAnotherPatient_ThrowsEmailAlreadyExistsException() {
+        // Given
+        patientService.createPatient(request("taken@example.com"));
+        PatientResponseDTO other = patientService.createPatient(request("other@example.com"));
+
+        // When & Then
+        assertThatThrownBy(() -> patientService.updatePatient(
+                UUID.fromString(other.getId()), request("taken@example.com")))
+                .isInstanceOf(EmailAlreadyExistsException.class);
+    }
+
+    @Test
+    void testUpdatePatient_KeepsOwnEmail_Succeeds() {
+        // Given
+        PatientResponseDTO created = patientService.createPatient(request("own@example.com"));
+        PatientRequestDTO update = request("own@example.com");
+        update.setName("Renamed");
+
+        // When
+        PatientResponseDTO updated = patientService.updatePatient(
+                UUID.fromString(created.getId()), update);
+
+        // Then
+        assertThat(updated.getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void testUpdatePatient_UnknownPatient_ThrowsPatientNotFoundException() {
+        // When & Then
+        assertThatThrownBy(() -> patientService.updatePatient(
+                UUID.randomUUID(), request("nobody@example.com")))
+                .isInstanceOf(PatientNotFoundException.class);
+    }
+
+    @Test
+    void testGetPatient_ReturnsProjectedFields() {
+        // Given
+        PatientResponseDTO created = patientService.createPatient(request("view@example.com"));
+
+        // When
+        PatientResponseDTO found = patientService.getPatient(UUID.fromString(created.getId()));
+
+        // Then
+        assertThat(found.getEmail()).isEqualTo("view@example.com");
+        assertThat(found.getDateOfBirth()).isEqualTo("1990-01-01");
+        assertThat(found.getBillingStatus()).isEqualTo("PENDING");
+    }
+
+    @Test
+    void testGetPatients_PagesThroughProjections() {
+        // Given
+        patientService.createPatient(request("page1@example.com"));
+        patientService.createPatient(request("page2@example.com"));
+
+        // When
+        PatientPageResponseDTO first = patientService.getPatients(null, 1);
+        PatientPageResponseDTO second = patientService.getPatients(first.getNextCursor(), 1);
+
+        // Then
+        assertThat(first.getPatients()).hasSize(1);
+        assertThat(second.getPatients()).hasSize(1);
+        assertThat(second.getPatients().get(0).getId())
+                .isNotEqualTo(first.getPatients().get(0).getId());
+    }
+
+    @Test
+    void testPatchPatient_OnlyGivenFields_ChangesThemAndBumpsVersion() {
+        // Given
+        PatientResponseDTO created = patientService.createPatient(request("patch@example.com"));
+        PatientPatchRequestDTO patch = new PatientPatchRequestDTO();
+        patch.setAddress("1 New St");
+        patch.setVersion(created.getVersion());
+
+        // When
+        PatientResponseDTO patched = patientService.patchPatient(UUID.fromString(created.getId()), patch);
+
+        // Then
+        assertThat(patched.getAddress()).isEqualTo("1 New St");
+        assertThat(patched.getName()).isEqualTo("John Doe");
+        assertThat(patched.getEmail()).isEqualTo("patch@example.com");
+        assertThat(patched.getVersion()).isEqualTo(created.getVersion() + 1);
+        assertThat(patientRepository.findById(UUID.fromString(created.getId())))
+                .get().extracting(Patient::getAddress).isEqualTo("1 New St");
+    }
+
+    @Test
+    void testReconcile_FailedPatient_ProvisionedWithoutVersionBump() {
+        // Given: failed long enough ago that no other test's patient is due
+        PatientResponseDTO created = patientService.createPatient(request("reconcile@example.com"));
+        UUID id = UUID.fromString(created.getId());
+        patientRepository.updateBillingStatus(List.of(id), BillingStatus.FAILED,
+                Instant.parse("2000-01-01T00:00:00Z"));
+        BillingServiceGrpcClient billingClient = mock(BillingServiceGrpcClient.class);
+        when(billingClient.createBillingAccounts(anyList()))
+                .thenReturn(BillingBatchResponse.getDefaultInstance());
+        BillingProvisioningService reconciler = new BillingProvisioningService(billingClient,
+                patientRepository, Runnable::run, patientResponseCache, entityManagerFactory, patientEventOutbox,
+                transactionTemplate, "sync", Duration.ofDays(3650), 200,
+                meterRegistry);
+
+        // When
+        reconciler.reconcile();
+        PatientPatchRequestDTO patch = new PatientPatchRequestDTO();
+        patch.setAddress("2 Billing Rd");
+        patch.setVersion(created.getVersion());
+        PatientResponseDTO patched = patientService.patchPatient(id, patch);
+
+        // Then: a client holding the version from before reconciliation can still patch
+        assertThat(patched.getBillingStatus()).isEqualTo("PROVISIONED");
+        assertThat(patched.getVersion()).isEqualTo(created.getVersion() + 1);
+    }
+
+    @Test
+    void testPatchPatient_StaleVersion_ThrowsPatientVersionConflictException() {
+        // Given
+        PatientResponseDTO created = patientService.createPatient(request("stale@example.com"));
+        PatientPatchRequestDTO first = new PatientPatchRequestDTO();
+        first.setName("First Editor");
+        first.setVersion(created.getVersion());
+        patientService.patchPatient(UUID.fromString(created.getId()), first);
+
+        PatientPatchRequestDTO second = new PatientPatchRequestDTO();
+        second.setName("Second Editor");
+        second.setVersion(created.getVersion());
+
+        // When & Then
+        assertThatThrownBy(() -> patientService.patchPatient(UUID.fromString(created.getId()), second))
+                .isInstanceOf(PatientVersionConflictException.class);
+        assertThat(patientService.getPatient(UUID.fromString(created.getId())).getName())
+                .isEqualTo("First Editor");
+    }
+
+    @Test
+    void testPatchPatient_EmailTakenByAnotherPatient_ThrowsEmailAlreadyExistsException() {
+        // Given
+        patientService.createPatient(request("patch-taken@example.com"));
+        PatientResponseDTO other = patientService.createPatient(request("patch-other@example.com"));
+        PatientPatchRequestDTO patch = new PatientPatchRequestDTO();
+        patch.setEmail("patch-taken@example.com");
+        patch.setVersion(other.getVersion());
+
+        // When & Then
+        assertThatThrownBy(() -> patientService.patchPatient(UUID.fromString(other.getId()), patch))
+                .isInstanceOf(EmailAlreadyExistsException.class);
+    }
+
+    @Test
+    void testPatchPatient_UnknownPatient_ThrowsPatientNotFoundException() {
+        // Given
+        PatientPatchRequestDTO patch = new PatientPatchRequestDTO();
+        patch.setName("Nobody");
+        patch.setVersion(0L);
+
+        // When & Then
+        assertThatThrownBy(() -> patientService.patchPatient(UUID.randomUUID(), patch))
+                .isInstanceOf(PatientNotFoundException.class);
+    }
+
+    @Test
+    void testStatistics_FollowCreatePatchAndDelete() {
+        // Given
+        PatientStatisticsResponseDTO before = patientStatistics.get();
+
+        // When
+        PatientResponseDTO created = patientService.createPatient(request("stats@example.com"));
+        PatientPatchRequestDTO patch = new PatientPatchRequestDTO();
+        patch.setDateOfBirth(LocalDate.now().minusYears(10).toString());
+        patch.setVersion(created.getVersion());
+        patientService.patchPatient(UUID.fromString(created.getId()), patch);
+        PatientStatisticsResponseDTO afterPatch = patientStatistics.get();
+
+        patientService.deletePatient(UUID.fromString(created.getId()));
+        PatientStatisticsResponseDTO afterDelete = patientStatistics.get();
+
+        // Then
+        assertThat(afterPatch.getTotal()).isEqualTo(before.getTotal() + 1);
+        assertThat(afterPatch.getRegistrationsPerMonth().get("2025-05"))
+                .isEqualTo(before.getRegistrationsPerMonth().getOrDefault("2025-05", 0L) + 1);
+        assertThat(afterPatch.getAgeBuckets().get("0-17"))
+                .isEqualTo(before.getAgeBuckets().get("0-17") + 1);
+        assertThat(afterDelete.getTotal()).isEqualTo(before.getTotal());
+        assertThat(afterDelete.getAgeBuckets()).isEqualTo(before.getAgeBuckets());
+    }
+
+    @Test
+    void testSearchPatients_FollowsCreateUpdateAndDelete() throws IOException {
+        // Given: waits for the startup rebuild, so refreshes are not held back
+        patientSearchIndex.rebuild();
+        PatientRequestDTO request = request("search@example.com");
+        request.setName("Quentin Blackwood");
+        PatientResponseDTO created = patientService.createPatient(request);
+        UUID id = UUID.fromString(created.getId());
+
+        // When
+        patientSearchIndex.refresh();
+        List<PatientResponseDTO> afterCreate = patientService.searchPatients("quentn black", 10);
+
+        request.setName("Quentin Greenwood");
+        patientService.updatePatient(id, request);
+        patientSearchIndex.refresh();
+        List<PatientResponseDTO> afterUpdate = patientService.searchPatients("blackwood", 10);
+
+        patientService.deletePatient(id);
+        patientSearchIndex.refresh();
+        List<PatientResponseDTO> afterDelete = patientService.searchPatients("quentin", 10);
+
+        // Then
+        assertThat(afterCreate).extracting(PatientResponseDTO::getId).containsExactly(created.getId());
+        assertThat(afterCreate.get(0).getEmail()).isEqualTo("search@example.com");
+        assertThat(afterUpdate).isEmpty();
+        assertThat(afterDelete).isEmpty();
+    }
+
+    @Test
+    void testDuplicates_SamePersonWithSecondEmail_FoundOnCreateAndGoneOnDelete() {
+        // Given: the startup scan may not have finished yet
+        patientDuplicateDetector.scan();
+        PatientRequestDTO first = request("marguerite.oduya@example.com");
+        first.setName("Marguerite Oduya");
+        first.setDateOfBirth("1972-11-08");
+        PatientResponseDTO original = patientService.createPatient(first);
+
+        // When
+        PatientRequestDTO second = request("m.oduya@mail.example");
+        second.setName("Margeurite Oduya");
+        second.setDateOfBirth("1972-11-08");
+        PatientResponseDTO duplicate = patientService.createPatient(second);
+        List<DuplicateCandidateDTO> afterCreate = patientDuplicateDetector.candidatesOf(
+                UUID.fromString(duplicate.getId()));
+
+        patientService.deletePatient(UUID.fromString(duplicate.getId()));
+        List<DuplicateCandidateDTO> afterDelete = patientDuplicateDetector.candidatesOf(
+                UUID.fromString(original.getId()));
+
+        // Then
+        assertThat(afterCreate).extracting(DuplicateCandidateDTO::getCandidateId)
+                .containsExactly(original.getId());
+        assertThat(afterDelete).isEmpty();
+    }
+
+    @Test
+    void testUpdatePatient_CreatedPatient_LoadedFromSecondLevelCache() {
+        // Given
+        PatientRequestDTO request = request("l2@example.com");
+        PatientResponseDTO created = patientService.createPatient(request);
+        Statistics statistics = statistics();
+        long hits = statistics.getCacheRegionStatistics(Patient.CACHE_REGION).getHitCount();
+
+        // When
+        request.setName("Jane Doe");
+        patientService.updatePatient(UUID.fromString(created.getId()), request);
+
+        // Then
+        assertThat(statistics.getCacheRegionStatistics(Patient.CACHE_REGION).getHitCount())
+                .isEqualTo(hits + 1);
+        assertThat(meterRegistry.find("hibernate.second.level.cache.requests").meters()).isNotEmpty();
+    }
+
+    @Test
+    void testProvision_OtherPatientStaysInSecondLevelCache() {
+        // Given
+        PatientResponseDTO cached = patientService.createPatient(request("l2-kept@example.com"));
+        UUID cachedId = UUID.fromString(cached.getId());
+        PatientResponseDTO created = patientService.createPatient(request("l2-billed@example.com"));
+        Patient billed = patientRepository.findById(UUID.fromString(created.getId())).orElseThrow();
+        BillingProvisioningService billing = new BillingProvisioningService(
+                mock(BillingServiceGrpcClient.class), patientRepository, Runnable::run,
+                patientResponseCache, entityManagerFactory, patientEventOutbox, transactionTemplate,
+                "sync", Duration.ofMinutes(1), 200, meterRegistry);
+        Statistics statistics = statistics();
+        long hits = statistics.getCacheRegionStatistics(Patient.CACHE_REGION).getHitCount();
+
+        // When: creating a patient ends with its billing status update
+        billing.provision(billed);
+        patientRepository.findById(cachedId);
+
+        // Then: only the billed patient was evicted
+        assertThat(statistics.getCacheRegionStatistics(Patient.CACHE_REGION).getHitCount())
+                .isEqualTo(hits + 1);
+        assertThat(entityManagerFactory.getCache().contains(Patient.class, billed.getId())).isFalse();
+        assertThat(patientRepository.findById(billed.getId())).get()
+                .extracting(Patient::getBillingStatus).isEqualTo(BillingStatus.PROVISIONED);
+    }
+
+    @Test
+    void testGetPatient_ResponseCacheMiss_LoadedFromSecondLevelCache() {
+        // Given
+        PatientResponseDTO created = patientService.createPatient(request("l2-get@example.com"));
+        UUID id = UUID.fromString(created.getId());
+        cacheManager.getCache(PatientService.PATIENT_CACHE).evict(id);
+        Statistics statistics = statistics();
+        long hits = statistics.getCacheRegionStatistics(Patient.CACHE_REGION).getHitCount();
+        long misses = statistics.getCacheRegionStatistics(Patient.CACHE_REGION).getMissCount();
+
+        // When
+        PatientResponseDTO patient = patientService.getPatient(id);
+
+        // Then
+        assertThat(patient.getEmail()).isEqualTo("l2-get@example.com");
+        assertThat(statistics.getCacheRegionStatistics(Patient.CACHE_REGION).getHitCount())
+                .isEqualTo(hits + 1);
+        assertThat(statistics.getCacheRegionStatistics(Patient.CACHE_REGION).getMissCount())
+                .isEqualTo(misses);
+    }
+
+    @Test
+    void testPatchPatient_NewEmail_FreesOldEmail() {
+        // Given
+        PatientResponseDTO created = patientService.createPatient(request("l2-old@example.com"));
+        List<String> emails = List.of("l2-old@example.com", "l2-new@example.com");
+        patientRepository.findExistingEmails(emails);
+        PatientPatchRequestDTO patch = new PatientPatchRequestDTO();
+        patch.setEmail("l2-new@example.com");
+        patch.setVersion(created.getVersion());
+
+        // When
+        patientService.patchPatient(UUID.fromString(created.getId()), patch);
+
+        // Then
+        assertThat(patientRepository.findExistingEmails(emails))
+                .containsExactly("l2-new@example.com");
+        assertThat(patientRepository.findById(UUID.fromString(created.getId()))).get()
+                .extracting(Patient::getEmail).isEqualTo("l2-new@example.com");
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private PatientRequestDTO request(String email) {
+        PatientRequestDTO request = new PatientRequestDTO();
+        request.setName("John Doe");
+        request.setEmail(email);
+        request.setAddress("123 Main St");
+        request.setDateOfBirth("1990-01-01");
+        request.setRegisteredDate("2025-05-31");
+        return request;
+    }
+}
@@ -0,0 +1,121 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientStatisticsResponseDTO;
+import com.pm.patientservice.model.DateCount;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientStatisticsTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PatientStatistics patientStatistics;
+
+    @BeforeEach
+    void setUp() {
+        patientStatistics = new PatientStatistics(patientRepository,
+                new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void testResync_BuildsCountersFromPerDateAggregates() {
+        // Given
+        when(patientRepository.countByRegisteredDate()).thenReturn(List.of(
+                new DateCount(LocalDate.of(2024, 5, 1), 2L),
+                new DateCount(LocalDate.of(2024, 5, 20), 1L),
+                new DateCount(LocalDate.of(2024, 6, 3), 4L)));
+        when(patientRepository.countByDateOfBirth()).thenReturn(List.of(
+                new DateCount(TODAY.minusYears(5), 3L),
+                new DateCount(TODAY.minusYears(40), 3L),
+                new DateCount(TODAY.minusYears(80), 1L)));
+
+        // When
+        patientStatistics.resync();
+        PatientStatisticsResponseDTO statistics = patientStatistics.get();
+
+        // Then
+        assertThat(statistics.getTotal()).isEqualTo(7);
+        assertThat(statistics.getRegistrationsPerMonth())
+                .containsExactly(Map.entry("2024-05", 3L), Map.entry("2024-06", 4L));
+        assertThat(statistics.getAgeBuckets()).containsExactly(
+                Map.entry("0-17", 3L), Map.entry("18-34", 0L), Map.entry("35-49", 3L),
+                Map.entry("50-64", 0L), Map.entry("65+", 1L));
+    }
+
+    @Test
+    void testResync_ChangeCommittedWhileQuerying_IsCountedOnce() {
+        // Given: a create commits after the aggregates' snapshot was taken
+        Patient patient = patient(LocalDate.of(2024, 6, 3), TODAY.minusYears(40));
+        when(patientRepository.countByRegisteredDate()).thenAnswer(invocation -> {
+            patientStatistics.recordCreated(List.of(patient));
+            return List.of(new DateCount(LocalDate.of(2024, 5, 1), 2L));
+        });
+        when(patientRepository.countByDateOfBirth()).thenReturn(List.of(
+                new DateCount(TODAY.minusYears(5), 2L)));
+
+        // When
+        patientStatistics.resync();
+        PatientStatisticsResponseDTO statistics = patientStatistics.get();
+
+        // Then
+        assertThat(statistics.getTotal()).isEqualTo(3);
+        assertThat(statistics.getRegistrationsPerMonth())
+                .containsExactly(Map.entry("2024-05", 2L), Map.entry("2024-06", 1L));
+        assertThat(statistics.getAgeBuckets())
+                .containsEntry("0-17", 2L).containsEntry("35-49", 1L);
+    }
+
+    @Test
+    void testRecordChanges_MoveCountersWithoutQuerying() {
+        // Given
+        Patient patient = patient(LocalDate.of(2024, 5, 1), TODAY.minusYears(18));
+
+        // When
+        patientStatistics.recordCreated(List.of(patient));
+        PatientStatisticsResponseDTO afterCreate = patientStatistics.get();
+        patientStatistics.recordDateOfBirthChanged(TODAY.minusYears(18), TODAY.minusYears(17));
+        PatientStatisticsResponseDTO afterUpdate = patientStatistics.get();
+        patient.setDateOfBirth(TODAY.minusYears(17));
+        patientStatistics.recordDeleted(patient);
+        PatientStatisticsResponseDTO afterDelete = patientStatistics.get();
+
+        // Then
+        assertThat(afterCreate.getTotal()).isEqualTo(1);
+        assertThat(afterCreate.getRegistrationsPerMonth()).containsEntry("2024-05", 1L);
+        assertThat(afterCreate.getAgeBuckets()).containsEntry("18-34", 1L);
+        assertThat(afterUpdate.getAgeBuckets())
+                .containsEntry("0-17", 1L).containsEntry("18-34", 0L);
+        assertThat(afterDelete.getTotal()).isZero();
+        assertThat(afterDelete.getRegistrationsPerMonth()).isEmpty();
+        assertThat(afterDelete.getAgeBuckets()).containsEntry("0-17", 0L);
+        verifyNoInteractions(patientRepository);
+    }
+
+    private static Patient patient(LocalDate registeredDate, LocalDate dateOfBirth) {
+        Patient patient = new Patient();
+        patient.setRegisteredDate(registeredDate);
+        patient.setDateOfBirth(dateOfBirth);
+        return patient;
+    }
+}
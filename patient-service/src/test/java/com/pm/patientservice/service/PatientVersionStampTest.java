@@ -0,0 +1,62 @@
+package com.pm.patientservice.service;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientVersionStampTest {
+
+    private final PatientVersionStamp patientVersionStamp = new PatientVersionStamp(Duration.ZERO);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testMarkChanged_OutsideTransaction_ChangesETagImmediately() {
+        // Given
+        String before = patientVersionStamp.etag();
+
+        // When
+        patientVersionStamp.markChanged();
+
+        // Then
+        assertThat(patientVersionStamp.etag()).isNotEqualTo(before).startsWith("\"").endsWith("\"");
+    }
+
+    @Test
+    void testMarkChanged_InsideTransaction_ChangesETagOnlyAfterCommit() {
+        // Given
+        String before = patientVersionStamp.etag();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        patientVersionStamp.markChanged();
+
+        // Then
+        assertThat(patientVersionStamp.etag()).isEqualTo(before);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertThat(patientVersionStamp.etag()).isNotEqualTo(before);
+    }
+
+    @Test
+    void testETag_FromAnotherInstanceAtSameVersion_NeverMatches() {
+        // Given: another replica, or this one after a restart, that has seen
+        // as many changes but not necessarily the same ones
+        PatientVersionStamp otherInstance = new PatientVersionStamp(Duration.ZERO);
+
+        // When
+        patientVersionStamp.markChanged();
+        otherInstance.markChanged();
+
+        // Then
+        assertThat(otherInstance.etag()).isNotEqualTo(patientVersionStamp.etag());
+    }
+}
@@ -0,0 +1,60 @@
+package com.pm.patientservice.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AfterCommitTest {
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRun_OutsideTransaction_RunsImmediately() {
+        // When
+        AfterCommit.run(runs::incrementAndGet);
+
+        // Then
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void testRun_InsideTransaction_RunsOnlyAfterCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        AfterCommit.run(runs::incrementAndGet);
+
+        // Then
+        assertThat(runs).hasValue(0);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void testRun_RolledBack_NeverRuns() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        AfterCommit.run(runs::incrementAndGet);
+
+        // When
+        TransactionSynchronizationUtils.triggerAfterCompletion(
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertThat(runs).hasValue(0);
+    }
+}
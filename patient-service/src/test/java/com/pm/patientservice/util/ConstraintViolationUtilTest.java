@@ -0,0 +1,35 @@
+package com.pm.patientservice.util;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConstraintViolationUtilTest {
+
+    @Test
+    void testIsEmailConflict_EmailConstraintAsReportedByEachDatabase_True() {
+        // When & Then: PostgreSQL, then H2
+        assertThat(ConstraintViolationUtil.isEmailConflict(violation("uk_patient_email"))).isTrue();
+        assertThat(ConstraintViolationUtil.isEmailConflict(
+                violation("PUBLIC.UK_PATIENT_EMAIL_INDEX_F"))).isTrue();
+    }
+
+    @Test
+    void testIsEmailConflict_PrimaryKeyOrUnnamedConstraint_False() {
+        // When & Then
+        assertThat(ConstraintViolationUtil.isEmailConflict(violation("patient_pkey"))).isFalse();
+        assertThat(ConstraintViolationUtil.isEmailConflict(
+                violation("PUBLIC.PRIMARY_KEY_F"))).isFalse();
+        assertThat(ConstraintViolationUtil.isEmailConflict(violation(null))).isFalse();
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException("constraint violated",
+                new ConstraintViolationException("constraint violated",
+                        new SQLException("constraint violated"), constraintName));
+    }
+}
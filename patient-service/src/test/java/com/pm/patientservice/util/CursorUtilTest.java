@@ -0,0 +1,39 @@
+package com.pm.patientservice.util;
+
+import com.pm.patientservice.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilTest {
+
+    @Test
+    void testEncodeDecode_RoundTripsId() {
+        // Given
+        UUID id = UUID.randomUUID();
+
+        // When
+        String cursor = CursorUtil.encode(id);
+
+        // Then
+        assertThat(cursor).doesNotContain(id.toString());
+        assertThat(CursorUtil.decode(cursor)).isEqualTo(id);
+    }
+
+    @Test
+    void testDecode_MalformedCursor_ThrowsInvalidCursorException() {
+        // When & Then
+        assertThatThrownBy(() -> CursorUtil.decode("not a cursor!"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void testDecode_ValidBase64ButNotAnId_ThrowsInvalidCursorException() {
+        // When & Then
+        assertThatThrownBy(() -> CursorUtil.decode("aGVsbG8"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
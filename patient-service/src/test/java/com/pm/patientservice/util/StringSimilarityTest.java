@@ -0,0 +1,31 @@
+package com.pm.patientservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StringSimilarityTest {
+
+    @Test
+    void testJaroWinkler_Transposition_ScoresHigh() {
+        // When & Then: the textbook example
+        assertThat(StringSimilarity.jaroWinkler("martha", "marhta"))
+                .isCloseTo(0.961, within(0.001));
+    }
+
+    @Test
+    void testJaroWinkler_CommonPrefix_RaisesJaroScore() {
+        // When & Then
+        assertThat(StringSimilarity.jaroWinkler("dixon", "dicksonx"))
+                .isCloseTo(0.813, within(0.001));
+    }
+
+    @Test
+    void testJaroWinkler_EqualEmptyAndUnrelatedStrings() {
+        // When & Then
+        assertThat(StringSimilarity.jaroWinkler("smith", "smith")).isEqualTo(1);
+        assertThat(StringSimilarity.jaroWinkler("smith", "")).isZero();
+        assertThat(StringSimilarity.jaroWinkler("abc", "xyz")).isZero();
+    }
+}
@@ -0,0 +1,51 @@
+package com.pm.patientservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void testNext_SetsVersionAndVariant() {
+        // When
+        UUID id = UuidV7Generator.next();
+
+        // Then
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void testNext_EmbedsCurrentTimestamp() {
+        // Given
+        long before = System.currentTimeMillis();
+
+        // When
+        UUID id = UuidV7Generator.next();
+
+        // Then
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertThat(millis).isBetween(before, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void testNext_IsStrictlyIncreasingWithinSameMillisecond() {
+        // Given
+        List<String> ids = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7Generator.next().toString());
+        }
+
+        // Then
+        // PostgreSQL compares uuid bytes unsigned, which matches the order of
+        // the lowercase hex strings
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+    }
+}